@@ -0,0 +1,61 @@
+package com.weatherapp.benchmark;
+
+import com.weatherapp.cache.LocationKeyGenerator;
+import com.weatherapp.service.WeatherService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache key building for a {@code WeatherService} lookup: the {@link LocationKeyGenerator} the
+ * caches use against a SpEL {@code #latitude + ',' + #longitude} key as a baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheKeyBenchmark {
+
+    private final BigDecimal latitude = new BigDecimal("40.7128");
+    private final BigDecimal longitude = new BigDecimal("-74.0060");
+
+    private LocationKeyGenerator keyGenerator;
+    private Method method;
+    private Expression spelKey;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        keyGenerator = new LocationKeyGenerator(new BigDecimal("0.01"));
+        method = WeatherService.class.getMethod("getCurrentWeather", BigDecimal.class, BigDecimal.class);
+        spelKey = new SpelExpressionParser().parseExpression("#latitude + ',' + #longitude");
+    }
+
+    @Benchmark
+    public Object locationKey() {
+        return keyGenerator.generate(null, method, latitude, longitude);
+    }
+
+    @Benchmark
+    public Object spelStringKey() {
+        StandardEvaluationContext context = new StandardEvaluationContext();
+        context.setVariable("latitude", latitude);
+        context.setVariable("longitude", longitude);
+        return spelKey.getValue(context);
+    }
+}
@@ -0,0 +1,58 @@
+package com.weatherapp.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weatherapp.client.OpenWeatherSnapshotDecoder;
+import com.weatherapp.dto.WeatherSnapshot;
+import com.weatherapp.dto.openweather.OpenWeatherResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding a {@code /onecall} payload: Jackson databind into {@link OpenWeatherResponse} against
+ * the streaming {@link OpenWeatherSnapshotDecoder} that the client uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecodeBenchmark {
+
+    @Param({"new-york", "oslo"})
+    private String fixture;
+
+    private byte[] payload;
+    private ObjectMapper objectMapper;
+    private OpenWeatherSnapshotDecoder snapshotDecoder;
+
+    @Setup
+    public void setUp() {
+        payload = BenchmarkFixtures.payload(fixture);
+        objectMapper = BenchmarkFixtures.objectMapper();
+        snapshotDecoder = new OpenWeatherSnapshotDecoder(objectMapper);
+    }
+
+    @Benchmark
+    public OpenWeatherResponse databind() throws IOException {
+        return objectMapper.readValue(payload, OpenWeatherResponse.class);
+    }
+
+    @Benchmark
+    public WeatherSnapshot streaming() throws IOException {
+        return snapshotDecoder.decode(new ByteArrayInputStream(payload));
+    }
+}
@@ -0,0 +1,93 @@
+package com.weatherapp.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weatherapp.client.OpenWeatherSnapshotDecoder;
+import com.weatherapp.dto.CompactDailyForecasts;
+import com.weatherapp.dto.CompactHourlyForecasts;
+import com.weatherapp.dto.DailyWeatherResponse;
+import com.weatherapp.dto.HourlyWeatherResponse;
+import com.weatherapp.dto.WeatherConditionTable;
+import com.weatherapp.dto.WeatherSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson encoding of the three response views, i.e. the work a cache hit does when the
+ * pre-serialized representation is disabled or not yet built. The {@code compact} variants encode
+ * the columnar forecast lists held by the view caches, which are written straight from their columns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncodeBenchmark {
+
+    @Param({"new-york", "oslo"})
+    private String fixture;
+
+    private ObjectMapper objectMapper;
+    private WeatherSnapshot snapshot;
+    private HourlyWeatherResponse compactHourly;
+    private DailyWeatherResponse compactDaily;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = BenchmarkFixtures.objectMapper();
+        snapshot = new OpenWeatherSnapshotDecoder(objectMapper)
+                .decode(new ByteArrayInputStream(BenchmarkFixtures.payload(fixture)));
+        WeatherConditionTable conditions = new WeatherConditionTable(1024);
+        HourlyWeatherResponse hourly = snapshot.getHourly();
+        compactHourly = HourlyWeatherResponse.builder()
+                .forecastCount(hourly.getForecastCount())
+                .hourly(CompactHourlyForecasts.of(hourly.getHourly(), conditions))
+                .dataSource(hourly.getDataSource())
+                .build();
+        DailyWeatherResponse daily = snapshot.getDaily();
+        compactDaily = DailyWeatherResponse.builder()
+                .forecastCount(daily.getForecastCount())
+                .daily(CompactDailyForecasts.of(daily.getDaily(), conditions))
+                .dataSource(daily.getDataSource())
+                .build();
+    }
+
+    @Benchmark
+    public byte[] current() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(snapshot.getCurrent());
+    }
+
+    @Benchmark
+    public byte[] hourly() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(snapshot.getHourly());
+    }
+
+    @Benchmark
+    public byte[] daily() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(snapshot.getDaily());
+    }
+
+    @Benchmark
+    public byte[] compactHourly() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(compactHourly);
+    }
+
+    @Benchmark
+    public byte[] compactDaily() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(compactDaily);
+    }
+}
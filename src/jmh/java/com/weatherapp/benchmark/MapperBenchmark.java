@@ -0,0 +1,71 @@
+package com.weatherapp.benchmark;
+
+import com.weatherapp.dto.CurrentWeatherResponse;
+import com.weatherapp.dto.DailyWeatherResponse;
+import com.weatherapp.dto.HourlyWeatherResponse;
+import com.weatherapp.dto.WeatherSnapshot;
+import com.weatherapp.dto.openweather.OpenWeatherResponse;
+import com.weatherapp.service.WeatherDataMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link WeatherDataMapper} from an already decoded {@link OpenWeatherResponse} to the response views.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({"new-york", "oslo"})
+    private String fixture;
+
+    private final WeatherDataMapper mapper = new WeatherDataMapper();
+    private OpenWeatherResponse response;
+    private BigDecimal latitude;
+    private BigDecimal longitude;
+
+    @Setup
+    public void setUp() throws IOException {
+        response = BenchmarkFixtures.objectMapper()
+                .readValue(BenchmarkFixtures.payload(fixture), OpenWeatherResponse.class);
+        latitude = BigDecimal.valueOf(response.getLatitude());
+        longitude = BigDecimal.valueOf(response.getLongitude());
+    }
+
+    @Benchmark
+    public CurrentWeatherResponse current() {
+        return mapper.mapToCurrentWeatherResponseFromApi(response.getCurrent(), latitude, longitude);
+    }
+
+    @Benchmark
+    public HourlyWeatherResponse hourly() {
+        return mapper.mapToHourlyWeatherResponseFromApi(response.getHourly(), latitude, longitude);
+    }
+
+    @Benchmark
+    public DailyWeatherResponse daily() {
+        return mapper.mapToDailyWeatherResponseFromApi(response.getDaily(), latitude, longitude);
+    }
+
+    @Benchmark
+    public WeatherSnapshot snapshot() {
+        return mapper.mapToWeatherSnapshotFromApi(response, latitude, longitude);
+    }
+}
@@ -0,0 +1,41 @@
+package com.weatherapp.loadtest;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-worker latency samples in nanoseconds. Each worker appends to its own recorder without
+ * coordination; percentiles are computed once over the merged, sorted samples.
+ */
+final class LatencyRecorder {
+
+    private long[] samples = new long[1 << 16];
+    private int size;
+
+    void record(long nanos) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, size * 2);
+        }
+        samples[size++] = nanos;
+    }
+
+    static long[] merge(List<LatencyRecorder> recorders) {
+        int total = recorders.stream().mapToInt(recorder -> recorder.size).sum();
+        long[] merged = new long[total];
+        int offset = 0;
+        for (LatencyRecorder recorder : recorders) {
+            System.arraycopy(recorder.samples, 0, merged, offset, recorder.size);
+            offset += recorder.size;
+        }
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,236 @@
+package com.weatherapp.loadtest;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.weatherapp.WeatherServiceApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the full application against {@link OpenWeatherStub} and drives it with a closed-loop
+ * load: {@code concurrency} clients each send the next request as soon as the previous one
+ * completes, choosing a location from a Zipfian distribution and a random view. Requests that
+ * start during the warm-up are not measured.
+ * <p>
+ * Arguments are {@code name=value} harness options (see {@link #DEFAULTS}). Arguments starting
+ * with {@code --} are passed to the application, e.g. {@code --weather.cache.maximum-size=500}.
+ */
+public final class LoadTestHarness {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+    private static final String[] VIEWS = {"current", "hourly", "daily"};
+
+    static {
+        DEFAULTS.put("duration-seconds", "60");
+        DEFAULTS.put("warmup-seconds", "15");
+        DEFAULTS.put("concurrency", "64");
+        DEFAULTS.put("locations", "10000");
+        DEFAULTS.put("zipf-exponent", "1.0");
+        DEFAULTS.put("fixture", "new-york");
+        DEFAULTS.put("stub-latency-median-ms", "80");
+        DEFAULTS.put("stub-latency-p99-ms", "500");
+        DEFAULTS.put("stub-error-rate", "0.0");
+        DEFAULTS.put("stub-throttle-rate", "0.0");
+    }
+
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private LoadTestHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                applicationArgs.add(arg);
+                continue;
+            }
+            int separator = arg.indexOf('=');
+            if (separator < 0 || !DEFAULTS.containsKey(arg.substring(0, separator))) {
+                throw new IllegalArgumentException("Unknown option " + arg + ", expected one of " + DEFAULTS.keySet());
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        new LoadTestHarness().run(options, applicationArgs.toArray(String[]::new));
+    }
+
+    private void run(Map<String, String> options, String[] applicationArgs) throws Exception {
+        try (OpenWeatherStub stub = new OpenWeatherStub(
+                options.get("fixture"),
+                Double.parseDouble(options.get("stub-latency-median-ms")),
+                Double.parseDouble(options.get("stub-latency-p99-ms")),
+                Double.parseDouble(options.get("stub-error-rate")),
+                Double.parseDouble(options.get("stub-throttle-rate")));
+             ConfigurableApplicationContext context = startApplication(stub, applicationArgs)) {
+
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            CacheManager cacheManager = context.getBean(CacheManager.class);
+            ZipfianLocations locations = new ZipfianLocations(
+                    Integer.parseInt(options.get("locations")),
+                    Double.parseDouble(options.get("zipf-exponent")));
+            int concurrency = Integer.parseInt(options.get("concurrency"));
+            long warmupNanos = Duration.ofSeconds(Long.parseLong(options.get("warmup-seconds"))).toNanos();
+            long durationNanos = Duration.ofSeconds(Long.parseLong(options.get("duration-seconds"))).toNanos();
+
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            String baseUrl = "http://127.0.0.1:" + port + "/api/weather/";
+
+            long start = System.nanoTime();
+            long measureFrom = start + warmupNanos;
+            long end = measureFrom + durationNanos;
+            List<LatencyRecorder> recorders = new ArrayList<>(concurrency);
+
+            try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < concurrency; i++) {
+                    LatencyRecorder recorder = new LatencyRecorder();
+                    recorders.add(recorder);
+                    workers.submit(() -> drive(client, baseUrl, locations, recorder, measureFrom, end));
+                }
+
+                sleepUntil(measureFrom);
+                OpenWeatherStub.Counts stubBefore = stub.counts();
+                Map<String, CacheStats> cachesBefore = cacheStats(cacheManager);
+                sleepUntil(end);
+                workers.shutdown();
+                workers.awaitTermination(1, TimeUnit.MINUTES);
+
+                report(options, durationNanos, LatencyRecorder.merge(recorders),
+                        stub.counts().minus(stubBefore), cachesBefore, cacheStats(cacheManager));
+            }
+        }
+    }
+
+    /**
+     * Passes the harness settings as command-line arguments, which take precedence over
+     * {@code application.yml}. Any of them can be overridden by an application argument.
+     */
+    private static ConfigurableApplicationContext startApplication(OpenWeatherStub stub, String[] applicationArgs) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("weather.api.base-url", stub.baseUrl());
+        properties.put("weather.api.api-key", "load-test");
+        properties.put("weather.rate-limit.enabled", "false");
+        for (String arg : applicationArgs) {
+            int separator = arg.indexOf('=');
+            properties.remove(arg.substring(2, separator > 0 ? separator : arg.length()));
+        }
+
+        List<String> args = new ArrayList<>();
+        properties.forEach((name, value) -> args.add("--" + name + "=" + value));
+        args.addAll(List.of(applicationArgs));
+        return new SpringApplicationBuilder(WeatherServiceApplication.class)
+                .run(args.toArray(String[]::new));
+    }
+
+    private void drive(HttpClient client, String baseUrl, ZipfianLocations locations,
+                       LatencyRecorder recorder, long measureFrom, long end) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long started;
+        while ((started = System.nanoTime()) < end) {
+            int rank = locations.nextRank();
+            URI uri = URI.create(baseUrl + VIEWS[random.nextInt(VIEWS.length)]
+                    + "?latitude=" + ZipfianLocations.latitude(rank).toPlainString()
+                    + "&longitude=" + ZipfianLocations.longitude(rank).toPlainString());
+            int status;
+            try {
+                status = client.send(HttpRequest.newBuilder(uri).GET().build(),
+                        HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                status = -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (started >= measureFrom) {
+                recorder.record(System.nanoTime() - started);
+                count(status);
+            }
+        }
+    }
+
+    private void count(int status) {
+        if (status < 0) {
+            failed.increment();
+        } else if (status == 429) {
+            rateLimited.increment();
+        } else if (status >= 500) {
+            serverErrors.increment();
+        } else if (status >= 400) {
+            clientErrors.increment();
+        } else {
+            succeeded.increment();
+        }
+    }
+
+    private static Map<String, CacheStats> cacheStats(CacheManager cacheManager) {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            org.springframework.cache.Cache cache = cacheManager.getCache(name);
+            if (cache != null && cache.getNativeCache() instanceof Cache<?, ?> store) {
+                stats.put(name, store.stats());
+            }
+        }
+        return stats;
+    }
+
+    private void report(Map<String, String> options, long durationNanos, long[] latencies,
+                        OpenWeatherStub.Counts upstream, Map<String, CacheStats> cachesBefore,
+                        Map<String, CacheStats> cachesAfter) {
+        double seconds = durationNanos / 1e9;
+        long requests = latencies.length;
+
+        System.out.println();
+        System.out.println("=== Load test: " + new TreeMap<>(options));
+        System.out.printf("requests      %d in %.0fs (%.1f req/s)%n", requests, seconds, requests / seconds);
+        System.out.printf("responses     2xx=%d 429=%d 4xx=%d 5xx=%d failed=%d%n",
+                succeeded.sum(), rateLimited.sum(), clientErrors.sum(), serverErrors.sum(), failed.sum());
+        System.out.printf("latency ms    p50=%.2f p90=%.2f p99=%.2f p999=%.2f max=%.2f%n",
+                LatencyRecorder.percentileMillis(latencies, 50),
+                LatencyRecorder.percentileMillis(latencies, 90),
+                LatencyRecorder.percentileMillis(latencies, 99),
+                LatencyRecorder.percentileMillis(latencies, 99.9),
+                LatencyRecorder.percentileMillis(latencies, 100));
+        System.out.printf("upstream      calls=%d 500=%d 429=%d (%.1f per 1000 requests)%n",
+                upstream.calls(), upstream.errors(), upstream.throttled(),
+                requests > 0 ? upstream.calls() * 1000.0 / requests : 0.0);
+        cachesAfter.forEach((name, after) -> {
+            CacheStats stats = after.minus(cachesBefore.getOrDefault(name, CacheStats.empty()));
+            System.out.printf("cache %-15s hits=%d misses=%d hit-ratio=%.3f evictions=%d%n",
+                    name, stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount());
+        });
+    }
+
+    private static void sleepUntil(long nanoTime) throws InterruptedException {
+        long remaining = nanoTime - System.nanoTime();
+        if (remaining > 0) {
+            Thread.sleep(Duration.ofNanos(remaining));
+        }
+    }
+}
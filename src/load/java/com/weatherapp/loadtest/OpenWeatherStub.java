@@ -0,0 +1,122 @@
+package com.weatherapp.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process stand-in for the OpenWeather {@code /onecall} endpoint. Every call waits for a
+ * log-normally distributed delay, then fails with a 500 or 429 at the configured rates or
+ * returns a fixture payload.
+ */
+final class OpenWeatherStub implements AutoCloseable {
+
+    private static final double Z_99 = 2.326;
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final byte[] payload;
+    private final double medianLatencyMs;
+    private final double latencySigma;
+    private final double errorRate;
+    private final double throttleRate;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+
+    OpenWeatherStub(String fixture, double medianLatencyMs, double p99LatencyMs,
+                    double errorRate, double throttleRate) throws IOException {
+        if (medianLatencyMs < 0 || p99LatencyMs < medianLatencyMs) {
+            throw new IllegalArgumentException("Stub latency needs 0 <= median <= p99");
+        }
+        this.payload = loadFixture(fixture);
+        this.medianLatencyMs = medianLatencyMs;
+        this.latencySigma = medianLatencyMs > 0 ? Math.log(p99LatencyMs / medianLatencyMs) / Z_99 : 0;
+        this.errorRate = errorRate;
+        this.throttleRate = throttleRate;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        this.server.createContext("/onecall", this::handle);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    Counts counts() {
+        return new Counts(calls.sum(), errors.sum(), throttled.sum());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        calls.increment();
+        try (exchange) {
+            sleep(sampleLatencyMs());
+            double outcome = ThreadLocalRandom.current().nextDouble();
+            if (outcome < errorRate) {
+                errors.increment();
+                exchange.sendResponseHeaders(500, -1);
+            } else if (outcome < errorRate + throttleRate) {
+                throttled.increment();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                exchange.sendResponseHeaders(429, -1);
+            } else {
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, payload.length);
+                try (OutputStream body = exchange.getResponseBody()) {
+                    body.write(payload);
+                }
+            }
+        }
+    }
+
+    private long sampleLatencyMs() {
+        if (medianLatencyMs == 0) {
+            return 0;
+        }
+        return Math.round(medianLatencyMs * Math.exp(latencySigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static byte[] loadFixture(String fixture) {
+        String resource = "/fixtures/onecall-" + fixture + ".json";
+        try (InputStream in = OpenWeatherStub.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Unknown fixture: " + fixture);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    record Counts(long calls, long errors, long throttled) {
+
+        Counts minus(Counts other) {
+            return new Counts(calls - other.calls, errors - other.errors, throttled - other.throttled);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.weatherapp.loadtest;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Draws locations so that the k-th most popular of {@code count} is requested with probability
+ * proportional to {@code 1 / k^exponent}. Locations sit 0.1 degrees apart, so each one lands in
+ * its own cache cell on the default grid.
+ */
+final class ZipfianLocations {
+
+    private static final int LONGITUDE_STEPS = 3600;
+
+    private final double[] cumulative;
+
+    ZipfianLocations(int count, double exponent) {
+        if (count <= 0 || count > LONGITUDE_STEPS * 1200) {
+            throw new IllegalArgumentException("Location count must be between 1 and " + LONGITUDE_STEPS * 1200);
+        }
+        cumulative = new double[count];
+        double sum = 0;
+        for (int rank = 0; rank < count; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < count; rank++) {
+            cumulative[rank] /= sum;
+        }
+    }
+
+    int nextRank() {
+        int index = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+
+    static BigDecimal latitude(int rank) {
+        return BigDecimal.valueOf(-60 * 10 + rank / LONGITUDE_STEPS, 1);
+    }
+
+    static BigDecimal longitude(int rank) {
+        return BigDecimal.valueOf(-180 * 10 + rank % LONGITUDE_STEPS, 1);
+    }
+}
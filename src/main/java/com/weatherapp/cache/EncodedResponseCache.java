@@ -0,0 +1,157 @@
+package com.weatherapp.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weatherapp.exception.WeatherServiceException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Per-response HTTP representation state for cached response objects: the strong ETag and load
+ * time registered when the snapshot was fetched, plus the encoded JSON and its gzip variant so a
+ * cache hit can be written without running Jackson or compressing again. A representation is
+ * stored in the view cache entry of its response, so it lives and expires with that entry. With
+ * {@code keep-identity} off only the gzip bytes are kept, about a sixth of the identity size for
+ * the forecast views, and identity responses are encoded on each request instead.
+ */
+@Component
+public class EncodedResponseCache {
+
+    private final ObjectMapper objectMapper;
+    private final CacheManager cacheManager;
+    private final LocationKeyGenerator locationKeyGenerator;
+    private final boolean enabled;
+    private final boolean keepIdentity;
+    private final Duration ttl;
+
+    public EncodedResponseCache(
+            ObjectMapper objectMapper,
+            CacheManager cacheManager,
+            LocationKeyGenerator locationKeyGenerator,
+            @Value("${weather.cache.pre-serialized.enabled}") boolean enabled,
+            @Value("${weather.cache.pre-serialized.keep-identity}") boolean keepIdentity,
+            @Value("${weather.cache.ttl-minutes}") long ttlMinutes) {
+        this.objectMapper = objectMapper;
+        this.cacheManager = cacheManager;
+        this.locationKeyGenerator = locationKeyGenerator;
+        this.enabled = enabled;
+        this.keepIdentity = keepIdentity;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * A new representation, to be stored alongside its response in the view caches.
+     */
+    public Representation create(String etag, Instant fetchedAt) {
+        return new Representation(etag, fetchedAt);
+    }
+
+    /**
+     * Returns the representation stored with {@code body} in the view cache, or one with an ETag
+     * derived from the response content if {@code body} is no longer the cached response for the location.
+     * The fetch time of such a response is unknown, so it gets a max-age of 0.
+     */
+    public Representation representation(String cacheName, BigDecimal latitude, BigDecimal longitude, Object body) {
+        Representation representation = stored(cacheName, latitude, longitude, body);
+        return representation != null
+                ? representation
+                : new Representation("\"" + Integer.toHexString(body.hashCode()) + "\"", null);
+    }
+
+    /**
+     * Whether {@code body} was fetched from the upstream at or after {@code since}, i.e. its
+     * request paid for a cache miss rather than being served from cache.
+     */
+    public boolean fetchedSince(String cacheName, BigDecimal latitude, BigDecimal longitude, Object body,
+                                Instant since) {
+        Representation representation = stored(cacheName, latitude, longitude, body);
+        return representation != null && !representation.fetchedAt.isBefore(since);
+    }
+
+    private Representation stored(String cacheName, BigDecimal latitude, BigDecimal longitude, Object body) {
+        if (!(cacheManager.getCache(cacheName) instanceof RefreshAheadCache refreshAheadCache)) {
+            return null;
+        }
+        return refreshAheadCache.representation(locationKeyGenerator.keyFor(latitude, longitude), body);
+    }
+
+    public byte[] identity(Object body, Representation representation) {
+        byte[] encoded = representation.identity;
+        if (encoded == null) {
+            encoded = encode(body);
+            if (keepIdentity) {
+                representation.identity = encoded;
+            }
+        }
+        return encoded;
+    }
+
+    /**
+     * Gzip variant, compressed on first use and kept alongside the identity bytes.
+     */
+    public byte[] gzip(Object body, Representation representation) {
+        byte[] compressed = representation.gzip;
+        if (compressed == null) {
+            compressed = compress(identity(body, representation));
+            representation.gzip = compressed;
+        }
+        return compressed;
+    }
+
+    public long maxAgeSeconds(Representation representation) {
+        if (representation.fetchedAt == null) {
+            return 0;
+        }
+        Duration remaining = ttl.minus(Duration.between(representation.fetchedAt, Instant.now()));
+        return Math.max(0, remaining.toSeconds());
+    }
+
+    private byte[] encode(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new WeatherServiceException("Failed to encode response", e);
+        }
+    }
+
+    private static byte[] compress(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public static final class Representation {
+        private final String etag;
+        private final String gzipEtag;
+        private final Instant fetchedAt;
+        private volatile byte[] identity;
+        private volatile byte[] gzip;
+
+        Representation(String etag, Instant fetchedAt) {
+            this.etag = etag;
+            this.gzipEtag = etag.substring(0, etag.length() - 1) + "-gzip\"";
+            this.fetchedAt = fetchedAt;
+        }
+
+        public String etag(boolean gzipped) {
+            return gzipped ? gzipEtag : etag;
+        }
+    }
+}
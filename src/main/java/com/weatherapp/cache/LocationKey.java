@@ -0,0 +1,49 @@
+package com.weatherapp.cache;
+
+/**
+ * Cache key for a cell of the location grid. Both grid indices are packed into a single
+ * {@code long}, so equality and hashing never touch the original coordinates.
+ */
+public final class LocationKey {
+
+    private final long packed;
+
+    private LocationKey(long packed) {
+        this.packed = packed;
+    }
+
+    public static LocationKey of(int latitudeIndex, int longitudeIndex) {
+        return new LocationKey(((long) latitudeIndex << 32) | (longitudeIndex & 0xFFFF_FFFFL));
+    }
+
+    public static LocationKey fromPacked(long packed) {
+        return new LocationKey(packed);
+    }
+
+    public long packed() {
+        return packed;
+    }
+
+    public int latitudeIndex() {
+        return (int) (packed >> 32);
+    }
+
+    public int longitudeIndex() {
+        return (int) packed;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || (other instanceof LocationKey that && packed == that.packed);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(packed * 0x9E37_79B9_7F4A_7C15L);
+    }
+
+    @Override
+    public String toString() {
+        return latitudeIndex() + ":" + longitudeIndex();
+    }
+}
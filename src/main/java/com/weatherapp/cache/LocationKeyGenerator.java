@@ -0,0 +1,71 @@
+package com.weatherapp.cache;
+
+import com.weatherapp.exception.InvalidLocationException;
+import com.weatherapp.logging.RequestTiming;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cache.interceptor.KeyGenerator;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snaps {@code (latitude, longitude)} method arguments to a fixed grid and returns the
+ * {@link LocationKey} of the containing cell, so nearby or differently scaled coordinates
+ * share one cache entry.
+ */
+public class LocationKeyGenerator implements KeyGenerator {
+
+    private final BigDecimal gridDegrees;
+    private final double gridDegreesValue;
+    private volatile Timer keyTimer;
+
+    public LocationKeyGenerator(BigDecimal gridDegrees) {
+        if (gridDegrees.signum() <= 0) {
+            throw new IllegalArgumentException("Location grid size must be positive");
+        }
+        this.gridDegrees = gridDegrees;
+        this.gridDegreesValue = gridDegrees.doubleValue();
+    }
+
+    /**
+     * Records the duration of every key the cache interceptor generates.
+     */
+    public void setKeyTimer(Timer keyTimer) {
+        this.keyTimer = keyTimer;
+    }
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        long start = System.nanoTime();
+        if (params.length < 2 || !(params[0] instanceof BigDecimal latitude)
+                || !(params[1] instanceof BigDecimal longitude)) {
+            throw new InvalidLocationException("Latitude and longitude are required");
+        }
+        LocationKey key = keyFor(latitude, longitude);
+
+        long elapsed = System.nanoTime() - start;
+        Timer timer = keyTimer;
+        if (timer != null) {
+            timer.record(elapsed, TimeUnit.NANOSECONDS);
+        }
+        RequestTiming.recordKey(elapsed);
+        return key;
+    }
+
+    public LocationKey keyFor(BigDecimal latitude, BigDecimal longitude) {
+        return LocationKey.of(snap(latitude.doubleValue()), snap(longitude.doubleValue()));
+    }
+
+    public BigDecimal latitudeOf(LocationKey key) {
+        return gridDegrees.multiply(BigDecimal.valueOf(key.latitudeIndex()));
+    }
+
+    public BigDecimal longitudeOf(LocationKey key) {
+        return gridDegrees.multiply(BigDecimal.valueOf(key.longitudeIndex()));
+    }
+
+    private int snap(double coordinate) {
+        return (int) Math.round(coordinate / gridDegreesValue);
+    }
+}
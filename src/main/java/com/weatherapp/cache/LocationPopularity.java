@@ -0,0 +1,100 @@
+package com.weatherapp.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate per-location request counts in a fixed-size count-min sketch, so tracking
+ * popularity costs the same memory however many distinct locations are requested. Counts are
+ * halved on every decay tick, making "hot" mean recently and repeatedly requested. Hot keys
+ * are also kept in a candidate set bounded to twice {@code top-k}, from which the most popular
+ * locations can be listed.
+ */
+@Component
+public class LocationPopularity {
+
+    private static final int DEPTH = 4;
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+    };
+
+    private final int widthMask;
+    private final AtomicLongArray counters;
+    private final long hotThreshold;
+    private final int topK;
+    private final ConcurrentMap<LocationKey, Boolean> candidates = new ConcurrentHashMap<>();
+
+    public LocationPopularity(
+            @Value("${weather.cache.popularity.sketch-width}") int sketchWidth,
+            @Value("${weather.cache.popularity.hot-threshold}") long hotThreshold,
+            @Value("${weather.cache.popularity.top-k}") int topK) {
+        int width = Integer.highestOneBit(Math.max(16, sketchWidth));
+        this.widthMask = width - 1;
+        this.counters = new AtomicLongArray(DEPTH * width);
+        this.hotThreshold = hotThreshold;
+        this.topK = topK;
+    }
+
+    public void record(LocationKey key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(row, key)));
+        }
+
+        if (estimate >= hotThreshold && candidates.putIfAbsent(key, Boolean.TRUE) == null
+                && candidates.size() > topK * 2) {
+            trim();
+        }
+    }
+
+    public long estimate(LocationKey key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, key)));
+        }
+        return estimate;
+    }
+
+    public boolean isHot(LocationKey key) {
+        return estimate(key) >= hotThreshold;
+    }
+
+    /**
+     * The most requested locations, most popular first, at most {@code top-k} of them.
+     */
+    public List<LocationKey> topLocations() {
+        return trim();
+    }
+
+    @Scheduled(fixedRateString = "${weather.cache.popularity.decay-interval-ms}")
+    public void decay() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.getAndUpdate(i, count -> count >>> 1);
+        }
+        candidates.keySet().removeIf(key -> estimate(key) == 0);
+    }
+
+    private synchronized List<LocationKey> trim() {
+        List<LocationKey> ranked = candidates.keySet().stream()
+                .sorted(Comparator.comparingLong(this::estimate).reversed())
+                .toList();
+        if (ranked.size() <= topK) {
+            return ranked;
+        }
+        ranked.subList(topK, ranked.size()).forEach(candidates::remove);
+        return ranked.subList(0, topK);
+    }
+
+    private int index(int row, LocationKey key) {
+        long hash = key.packed() * SEEDS[row];
+        hash ^= hash >>> 32;
+        return row * (widthMask + 1) + (int) (hash & widthMask);
+    }
+}
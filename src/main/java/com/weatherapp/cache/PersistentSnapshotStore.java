@@ -0,0 +1,198 @@
+package com.weatherapp.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weatherapp.dto.WeatherSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Second cache tier behind the Caffeine view caches: whole location snapshots serialized into
+ * an embedded H2 MVStore file, keyed by {@link LocationKey#packed()}. Entries outlive restarts
+ * and are kept until their stale-if-error window has passed; expired entries are swept every
+ * {@code sweep-interval-ms}, so the file does not keep every location ever requested. A second map
+ * holds each entry's fetch time, so the most recent and the expired entries can be found without
+ * decoding them. A {@code nioMapped:} path prefix makes the store memory-map its file instead of
+ * reading it through the heap.
+ */
+@Slf4j
+@Component
+public class PersistentSnapshotStore implements DisposableBean {
+
+    private static final String MEMORY_MAPPED_PREFIX = "nioMapped:";
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Duration maxAge;
+    private final MVStore store;
+    private final MVMap<Long, byte[]> snapshots;
+    private final MVMap<Long, Long> fetchedAt;
+
+    public PersistentSnapshotStore(
+            ObjectMapper objectMapper,
+            @Value("${weather.cache.l2.enabled}") boolean enabled,
+            @Value("${weather.cache.l2.path}") String path,
+            @Value("${weather.cache.l2.page-cache-mb}") int pageCacheMb,
+            @Value("${weather.cache.ttl-minutes}") long ttlMinutes,
+            @Value("${weather.cache.stale-if-error.enabled}") boolean staleIfErrorEnabled,
+            @Value("${weather.cache.stale-if-error.max-stale-minutes}") long maxStaleMinutes) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.maxAge = Duration.ofMinutes(ttlMinutes + (staleIfErrorEnabled ? maxStaleMinutes : 0));
+
+        if (enabled) {
+            String filePath = path.startsWith(MEMORY_MAPPED_PREFIX) ? path.substring(MEMORY_MAPPED_PREFIX.length()) : path;
+            File parent = new File(filePath).getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                parent.mkdirs();
+            }
+            this.store = new MVStore.Builder()
+                    .fileName(path)
+                    .cacheSize(pageCacheMb)
+                    .compress()
+                    .open();
+            this.snapshots = store.openMap("snapshots");
+            this.fetchedAt = store.openMap("fetched-at");
+            log.info("Opened persistent snapshot store at {} with {} entries", path, snapshots.size());
+        } else {
+            this.store = null;
+            this.snapshots = null;
+            this.fetchedAt = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public WeatherSnapshot get(LocationKey key) {
+        if (!enabled) {
+            return null;
+        }
+
+        byte[] bytes = snapshots.get(key.packed());
+        if (bytes == null) {
+            return null;
+        }
+
+        WeatherSnapshot snapshot = decode(key.packed(), bytes);
+        if (snapshot == null || isExpired(snapshot)) {
+            remove(key.packed());
+            return null;
+        }
+        return snapshot;
+    }
+
+    public void put(LocationKey key, WeatherSnapshot snapshot) {
+        if (!enabled || snapshot.getFetchedAt() == null) {
+            return;
+        }
+
+        try {
+            snapshots.put(key.packed(), objectMapper.writeValueAsBytes(snapshot));
+            fetchedAt.put(key.packed(), snapshot.getFetchedAt().toEpochMilli());
+        } catch (IOException e) {
+            log.warn("Failed to persist snapshot for {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Visits up to {@code limit} retained snapshots, most recently fetched first. Only the visited
+     * entries are decoded; expired ones are dropped along the way.
+     */
+    public void forEachRecent(int limit, BiConsumer<LocationKey, WeatherSnapshot> consumer) {
+        if (!enabled) {
+            return;
+        }
+
+        sweepExpired();
+        List<Map.Entry<Long, Long>> recent = new ArrayList<>(fetchedAt.entrySet());
+        recent.sort(Map.Entry.<Long, Long>comparingByValue().reversed());
+
+        int visited = 0;
+        for (Map.Entry<Long, Long> entry : recent) {
+            if (visited >= limit) {
+                break;
+            }
+            byte[] bytes = snapshots.get(entry.getKey());
+            WeatherSnapshot snapshot = bytes != null ? decode(entry.getKey(), bytes) : null;
+            if (snapshot == null || isExpired(snapshot)) {
+                remove(entry.getKey());
+                continue;
+            }
+            consumer.accept(LocationKey.fromPacked(entry.getKey()), snapshot);
+            visited++;
+        }
+    }
+
+    /**
+     * Removes every entry past its stale-if-error window, using the fetch times alone.
+     */
+    @Scheduled(fixedDelayString = "${weather.cache.l2.sweep-interval-ms}",
+            initialDelayString = "${weather.cache.l2.sweep-interval-ms}")
+    public void sweepExpired() {
+        if (!enabled) {
+            return;
+        }
+
+        long oldest = oldestRetained();
+        List<Long> expired = new ArrayList<>();
+        for (Map.Entry<Long, Long> entry : fetchedAt.entrySet()) {
+            if (entry.getValue() < oldest) {
+                expired.add(entry.getKey());
+            }
+        }
+        expired.forEach(this::remove);
+        if (!expired.isEmpty()) {
+            log.debug("Swept {} expired snapshots from the persistent store", expired.size());
+        }
+    }
+
+    public int size() {
+        return enabled ? snapshots.size() : 0;
+    }
+
+    @Override
+    public void destroy() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    private void remove(long packedKey) {
+        snapshots.remove(packedKey);
+        fetchedAt.remove(packedKey);
+    }
+
+    private long oldestRetained() {
+        return Instant.now().minus(maxAge).toEpochMilli();
+    }
+
+    private boolean isExpired(WeatherSnapshot snapshot) {
+        return snapshot.getFetchedAt() == null
+                || snapshot.getFetchedAt().plus(maxAge).isBefore(Instant.now());
+    }
+
+    private WeatherSnapshot decode(long packedKey, byte[] bytes) {
+        try {
+            return objectMapper.readValue(bytes, WeatherSnapshot.class);
+        } catch (IOException e) {
+            log.warn("Discarding unreadable persisted snapshot for {}: {}",
+                    LocationKey.fromPacked(packedKey), e.getMessage());
+            return null;
+        }
+    }
+}
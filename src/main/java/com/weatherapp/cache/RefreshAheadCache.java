@@ -0,0 +1,297 @@
+package com.weatherapp.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import com.weatherapp.logging.RequestTiming;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Caffeine-backed Spring cache with two soft boundaries inside the hard Caffeine expiry.
+ * <ul>
+ *   <li>Entries older than {@code refreshAfter} are still returned, and one background
+ *   refresh is started through the registered refresher (refresh-ahead).</li>
+ *   <li>Entries older than {@code ttl} are reported as misses but stay in the store until the
+ *   hard expiry, so {@link #getStale(Object)} can serve them while the upstream is failing
+ *   (stale-if-error).</li>
+ * </ul>
+ * Both soft boundaries can be stretched at runtime by a TTL extension factor, up to the hard expiry.
+ * Hits and misses are recorded in the store's {@link StatsCounter} as seen by callers, so an
+ * entry past its TTL counts as a miss, and loads through {@code @Cacheable} are recorded as well.
+ */
+@Slf4j
+public class RefreshAheadCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final Cache<Object, CacheEntry> store;
+    private final StatsCounter statsCounter;
+    private final long refreshAfterNanos;
+    private final long ttlNanos;
+    private final long maxAgeNanos;
+    private volatile Function<Object, CompletableFuture<?>> refresher;
+    private volatile Consumer<Object> accessListener;
+    private volatile DoubleSupplier ttlExtension = () -> 1.0;
+    private volatile Timer lookupTimer;
+
+    /**
+     * {@code statsCounter} must be the counter the store was built to record into.
+     */
+    public RefreshAheadCache(String name, Cache<Object, CacheEntry> store, StatsCounter statsCounter,
+                             Duration refreshAfter, Duration ttl, Duration maxAge) {
+        super(false);
+        this.name = name;
+        this.store = store;
+        this.statsCounter = statsCounter;
+        this.refreshAfterNanos = refreshAfter.toNanos();
+        this.ttlNanos = ttl.toNanos();
+        this.maxAgeNanos = maxAge.toNanos();
+    }
+
+    public void setRefresher(Function<Object, CompletableFuture<?>> refresher) {
+        this.refresher = refresher;
+    }
+
+    /**
+     * Called with the key of every lookup, hit or miss.
+     */
+    public void setAccessListener(Consumer<Object> accessListener) {
+        this.accessListener = accessListener;
+    }
+
+    /**
+     * Factor (at least 1) applied to {@code refreshAfter} and {@code ttl} on each lookup.
+     */
+    public void setTtlExtension(DoubleSupplier ttlExtension) {
+        this.ttlExtension = ttlExtension;
+    }
+
+    /**
+     * Records the duration of every lookup, hit or miss.
+     */
+    public void setLookupTimer(Timer lookupTimer) {
+        this.lookupTimer = lookupTimer;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return store;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        long start = System.nanoTime();
+        Consumer<Object> listener = accessListener;
+        if (listener != null) {
+            listener.accept(key);
+        }
+
+        Object value = freshValue(key, start);
+        if (value != null) {
+            statsCounter.recordHits(1);
+        } else {
+            statsCounter.recordMisses(1);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        Timer timer = lookupTimer;
+        if (timer != null) {
+            timer.record(elapsed, TimeUnit.NANOSECONDS);
+        }
+        RequestTiming.recordCacheLookup(elapsed, value != null);
+        return value;
+    }
+
+    private Object freshValue(Object key, long now) {
+        // asMap().get() updates the eviction policy but leaves hit/miss recording to lookup()
+        CacheEntry entry = store.asMap().get(key);
+        if (entry == null) {
+            return null;
+        }
+
+        double extension = Math.max(1.0, ttlExtension.getAsDouble());
+        long age = now - entry.loadedAt;
+        if (age >= extend(ttlNanos, extension)) {
+            return null;
+        }
+        if (age >= extend(refreshAfterNanos, extension)) {
+            refreshAhead(key, entry);
+        }
+        return entry.value;
+    }
+
+    /**
+     * Records a load that ran outside {@link #get(Object, Callable)} and {@link #retrieve(Object, Supplier)},
+     * as for a {@code @Cacheable} method that is not {@code sync}.
+     */
+    public void recordLoad(long nanos, boolean success) {
+        if (success) {
+            statsCounter.recordLoadSuccess(nanos);
+        } else {
+            statsCounter.recordLoadFailure(nanos);
+        }
+    }
+
+    /**
+     * Returns the last stored value for {@code key} regardless of its age, or {@code null}
+     * once the hard expiry has evicted it.
+     */
+    public Object getStale(Object key) {
+        CacheEntry entry = store.policy().getIfPresentQuietly(key);
+        return entry != null && System.nanoTime() - entry.loadedAt < maxAgeNanos ? entry.value : null;
+    }
+
+    /**
+     * Time left until {@code key} stops being served as fresh, 0 if it has expired, or -1 if it is absent.
+     */
+    public long remainingFreshNanos(Object key) {
+        CacheEntry entry = store.policy().getIfPresentQuietly(key);
+        if (entry == null) {
+            return -1;
+        }
+        long ttl = extend(ttlNanos, Math.max(1.0, ttlExtension.getAsDouble()));
+        return Math.max(0, ttl - (System.nanoTime() - entry.loadedAt));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = lookup(key);
+        if (value != null) {
+            return (T) value;
+        }
+
+        long start = System.nanoTime();
+        try {
+            T loaded = valueLoader.call();
+            statsCounter.recordLoadSuccess(System.nanoTime() - start);
+            put(key, loaded);
+            return loaded;
+        } catch (Exception e) {
+            statsCounter.recordLoadFailure(System.nanoTime() - start);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<?> retrieve(Object key) {
+        Object value = lookup(key);
+        return value != null ? CompletableFuture.completedFuture(value) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+        Object value = lookup(key);
+        if (value != null) {
+            return CompletableFuture.completedFuture((T) value);
+        }
+        long start = System.nanoTime();
+        return valueLoader.get().whenComplete((loaded, error) -> {
+            if (error == null) {
+                statsCounter.recordLoadSuccess(System.nanoTime() - start);
+            } else {
+                statsCounter.recordLoadFailure(System.nanoTime() - start);
+            }
+        }).thenApply(loaded -> {
+            put(key, loaded);
+            return loaded;
+        });
+    }
+
+    /**
+     * Storing the exact instance that is already cached keeps its original load time, so a stale
+     * value handed back to {@code @Cacheable} does not come back looking fresh.
+     */
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            return;
+        }
+        store.asMap().compute(key, (k, existing) ->
+                existing != null && existing.value == value ? existing : new CacheEntry(value, System.nanoTime(), null));
+    }
+
+    /**
+     * Stores a value that was loaded earlier, e.g. promoted from a persistent tier, so that its
+     * age and refresh schedule carry over instead of starting again. The encoded representation,
+     * if any, is kept in the same entry.
+     */
+    public void put(Object key, Object value, Instant loadedAt, EncodedResponseCache.Representation representation) {
+        long ageNanos = Math.max(0, Duration.between(loadedAt, Instant.now()).toNanos());
+        store.put(key, new CacheEntry(value, System.nanoTime() - ageNanos, representation));
+    }
+
+    /**
+     * The representation stored with {@code value}, or {@code null} if {@code value} is no longer
+     * the entry for {@code key} or was stored without one.
+     */
+    public EncodedResponseCache.Representation representation(Object key, Object value) {
+        CacheEntry entry = store.policy().getIfPresentQuietly(key);
+        return entry != null && entry.value == value ? entry.representation : null;
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        CacheEntry existing = store.asMap().putIfAbsent(key, new CacheEntry(value, System.nanoTime(), null));
+        return existing != null ? toValueWrapper(existing.value) : null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        store.invalidate(key);
+    }
+
+    @Override
+    public void clear() {
+        store.invalidateAll();
+    }
+
+    private long extend(long nanos, double extension) {
+        return extension == 1.0 ? nanos : Math.min(maxAgeNanos, (long) (nanos * extension));
+    }
+
+    private void refreshAhead(Object key, CacheEntry entry) {
+        Function<Object, CompletableFuture<?>> currentRefresher = refresher;
+        if (currentRefresher == null || !entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+
+        log.debug("Refreshing {} entry ahead of expiry: key={}", name, key);
+        currentRefresher.apply(key).whenComplete((result, error) -> {
+            entry.refreshing.set(false);
+            if (error != null) {
+                log.warn("Background refresh failed for {} key {}: {}", name, key, error.getMessage());
+            }
+        });
+    }
+
+    public static final class CacheEntry {
+        private final Object value;
+        private final long loadedAt;
+        private final EncodedResponseCache.Representation representation;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        CacheEntry(Object value, long loadedAt, EncodedResponseCache.Representation representation) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+            this.representation = representation;
+        }
+    }
+}
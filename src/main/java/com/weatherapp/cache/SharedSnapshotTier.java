@@ -0,0 +1,181 @@
+package com.weatherapp.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weatherapp.dto.WeatherSnapshot;
+import com.weatherapp.shared.SharedStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * Cross-replica tier shared by all instances through a {@link SharedStore}. Holds whole location
+ * snapshots, hands out per-location fetch leases so only one replica calls the upstream for a
+ * cell, and broadcasts an invalidation whenever a replica stores a newer snapshot so the others
+ * drop their near-cache copies. Disabled when no shared backend is configured.
+ */
+@Slf4j
+@Component
+public class SharedSnapshotTier {
+
+    private static final String SNAPSHOT_PREFIX = "weather:snapshot:";
+    private static final String LEASE_PREFIX = "weather:lease:";
+    private static final String INVALIDATION_CHANNEL = "weather:invalidations";
+
+    private final SharedStore store;
+    private final ObjectMapper objectMapper;
+    private final byte[] nodeId;
+    private final Duration leaseTime;
+    private final Duration pollInterval;
+    private final Duration ttl;
+    private final Duration retention;
+
+    public SharedSnapshotTier(
+            ObjectProvider<SharedStore> store,
+            ObjectMapper objectMapper,
+            @Value("${weather.shared.node-id}") String nodeId,
+            @Value("${weather.shared.lease-seconds}") long leaseSeconds,
+            @Value("${weather.shared.poll-interval-ms}") long pollIntervalMs,
+            @Value("${weather.cache.ttl-minutes}") long ttlMinutes,
+            @Value("${weather.cache.stale-if-error.enabled}") boolean staleIfErrorEnabled,
+            @Value("${weather.cache.stale-if-error.max-stale-minutes}") long maxStaleMinutes) {
+        this.store = store.getIfAvailable();
+        this.objectMapper = objectMapper;
+        this.nodeId = nodeId.getBytes(StandardCharsets.UTF_8);
+        this.leaseTime = Duration.ofSeconds(leaseSeconds);
+        this.pollInterval = Duration.ofMillis(pollIntervalMs);
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.retention = Duration.ofMinutes(ttlMinutes + (staleIfErrorEnabled ? maxStaleMinutes : 0));
+        if (this.store != null) {
+            log.info("Shared snapshot tier enabled as node {}", nodeId);
+        }
+    }
+
+    public boolean isEnabled() {
+        return store != null;
+    }
+
+    public WeatherSnapshot get(LocationKey key) {
+        if (store == null) {
+            return null;
+        }
+
+        try {
+            byte[] bytes = store.get(SNAPSHOT_PREFIX + key.packed());
+            return bytes != null ? objectMapper.readValue(bytes, WeatherSnapshot.class) : null;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Shared snapshot lookup failed for {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Stores the snapshot for every replica and tells the others to drop their near-cache views.
+     */
+    public void put(LocationKey key, WeatherSnapshot snapshot) {
+        if (store == null) {
+            return;
+        }
+
+        try {
+            store.set(SNAPSHOT_PREFIX + key.packed(), objectMapper.writeValueAsBytes(snapshot), retention);
+            store.publish(INVALIDATION_CHANNEL, invalidation(key));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to share snapshot for {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Claims the right to fetch {@code key} from the upstream. Returns {@code true} when the shared
+     * store cannot be reached, so an outage degrades to per-replica fetching instead of no fetching.
+     */
+    public boolean tryAcquireLease(LocationKey key) {
+        try {
+            return store.setIfAbsent(LEASE_PREFIX + key.packed(), nodeId, leaseTime);
+        } catch (RuntimeException e) {
+            log.warn("Fetch lease unavailable for {}: {}", key, e.getMessage());
+            return true;
+        }
+    }
+
+    private boolean isLeased(LocationKey key) {
+        try {
+            return store.get(LEASE_PREFIX + key.packed()) != null;
+        } catch (RuntimeException e) {
+            log.debug("Fetch lease lookup failed for {}: {}", key, e.getMessage());
+            return false;
+        }
+    }
+
+    public void releaseLease(LocationKey key) {
+        try {
+            store.deleteIfEquals(LEASE_PREFIX + key.packed(), nodeId);
+        } catch (RuntimeException e) {
+            log.debug("Failed to release fetch lease for {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Waits for the lease holder to finish, polling the small lease entry for at most one lease
+     * period, then reads and decodes the snapshot once. The holder stores its snapshot before it
+     * releases the lease. Completes empty if the lease outlives the wait or no fresh snapshot was
+     * stored, in which case the caller fetches it itself.
+     */
+    public Mono<WeatherSnapshot> awaitPeer(LocationKey key) {
+        long polls = Math.max(1, leaseTime.toMillis() / Math.max(1, pollInterval.toMillis()));
+        return Flux.interval(pollInterval, Schedulers.boundedElastic())
+                .take(polls)
+                .filter(tick -> !isLeased(key))
+                .next()
+                .flatMap(tick -> Mono.justOrEmpty(get(key)))
+                .filter(this::isFresh);
+    }
+
+    /**
+     * Registers a listener for locations updated by other replicas; this node's own updates are skipped.
+     */
+    public void onInvalidation(Consumer<LocationKey> listener) {
+        if (store == null) {
+            return;
+        }
+
+        store.subscribe(INVALIDATION_CHANNEL, message -> {
+            ByteBuffer buffer = ByteBuffer.wrap(message);
+            LocationKey key = LocationKey.fromPacked(buffer.getLong());
+            byte[] sender = new byte[buffer.remaining()];
+            buffer.get(sender);
+            if (!ByteBuffer.wrap(sender).equals(ByteBuffer.wrap(nodeId))) {
+                listener.accept(key);
+            }
+        });
+    }
+
+    public boolean isFresh(WeatherSnapshot snapshot) {
+        return isFresh(snapshot, Duration.ZERO);
+    }
+
+    /**
+     * Whether the snapshot stays fresh for at least {@code freshFor}.
+     */
+    public boolean isFresh(WeatherSnapshot snapshot, Duration freshFor) {
+        return snapshot.getFetchedAt() != null
+                && snapshot.getFetchedAt().plus(ttl).isAfter(Instant.now().plus(freshFor));
+    }
+
+    private byte[] invalidation(LocationKey key) {
+        return ByteBuffer.allocate(Long.BYTES + nodeId.length)
+                .putLong(key.packed())
+                .put(nodeId)
+                .array();
+    }
+}
@@ -0,0 +1,78 @@
+package com.weatherapp.client;
+
+/**
+ * AIMD concurrency limit driven by observed latency: each successful call under the latency
+ * target grows the limit by roughly one per round trip, while a dropped call or a sample well
+ * above the long-term average latency cuts it multiplicatively.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double LONG_TERM_SMOOTHING = 0.05;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+
+    private double limit;
+    private int inFlight;
+    private double longTermRttNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double backoffRatio, double latencyTolerance) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Returns a permit and feeds the call's outcome into the limit. {@code dropped} marks a call
+     * that failed in a way that signals overload, such as a timeout or a 5xx or 429 response.
+     */
+    public synchronized void release(long rttNanos, boolean dropped) {
+        inFlight--;
+
+        if (dropped) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+            return;
+        }
+
+        if (longTermRttNanos == 0) {
+            longTermRttNanos = rttNanos;
+        }
+        boolean slow = rttNanos > longTermRttNanos * latencyTolerance;
+        longTermRttNanos += (rttNanos - longTermRttNanos) * LONG_TERM_SMOOTHING;
+
+        if (slow) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (inFlight + 1 >= limit / 2) {
+            // only grow while the limit is actually being used
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    /**
+     * Returns a permit without adjusting the limit, for calls cancelled before an outcome.
+     */
+    public synchronized void ignore() {
+        inFlight--;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+}
@@ -1,110 +1,208 @@
 package com.weatherapp.client;
 
+import com.weatherapp.dto.WeatherSnapshot;
 import com.weatherapp.dto.openweather.OpenWeatherResponse;
 import com.weatherapp.exception.ExternalApiException;
+import com.weatherapp.exception.MalformedUpstreamResponseException;
+import com.weatherapp.logging.RequestStageTimers;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.http.Outcome;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.codec.CodecException;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpStatus;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 @Slf4j
 @Component
 public class OpenWeatherClient {
 
     private final WebClient webClient;
+    private final OpenWeatherSnapshotDecoder snapshotDecoder;
+    private final UpstreamGuard upstreamGuard;
     private final String apiKey;
+    private final int maxAttempts;
+    private final MeterRegistry meterRegistry;
+    private final Duration timeout;
+    private final Timer decodeTimer;
+    private final ConcurrentMap<Integer, Timer> attemptTimers = new ConcurrentHashMap<>();
 
     public OpenWeatherClient(
             WebClient weatherApiWebClient,
-            @Value("${weather.api.api-key}") String apiKey) {
+            OpenWeatherSnapshotDecoder snapshotDecoder,
+            UpstreamGuard upstreamGuard,
+            RequestStageTimers stageTimers,
+            @Value("${weather.api.api-key}") String apiKey,
+            @Value("${weather.api.max-retries}") int maxAttempts,
+            @Value("${weather.api.timeout-seconds}") long timeoutSeconds,
+            MeterRegistry meterRegistry) {
         this.webClient = weatherApiWebClient;
+        this.snapshotDecoder = snapshotDecoder;
+        this.upstreamGuard = upstreamGuard;
         this.apiKey = apiKey;
+        this.maxAttempts = maxAttempts;
+        this.meterRegistry = meterRegistry;
+        this.timeout = Duration.ofSeconds(timeoutSeconds);
+        this.decodeTimer = stageTimers.getMap();
     }
 
-    @Retryable(
-            retryFor = {ExternalApiException.class},
-            maxAttemptsExpression = "${weather.api.max-retries}",
-            backoff = @Backoff(delayExpression = "${weather.api.retry-delay-ms}")
-    )
-    public OpenWeatherResponse fetchWeatherData(BigDecimal latitude, BigDecimal longitude) {
-        log.info("Fetching weather data from OpenWeather API for location: ({}, {})", 
-                latitude, longitude);
-
-        try {
-            OpenWeatherResponse response = webClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("/onecall")
-                            .queryParam("lat", latitude)
-                            .queryParam("lon", longitude)
-                            .queryParam("appid", apiKey)
-                            .queryParam("units", "metric")
-                            .queryParam("exclude", "minutely,alerts")
-                            .build())
-                    .retrieve()
-                    .onStatus(
-                            status -> status.value() == HttpStatus.UNAUTHORIZED.value(),
-                            clientResponse -> Mono.error(new ExternalApiException(
-                                    "Invalid API key", 
-                                    HttpStatus.UNAUTHORIZED.value()
-                            ))
-                    )
-                    .onStatus(
-                            status -> status.value() == HttpStatus.NOT_FOUND.value(),
-                            clientResponse -> Mono.error(new ExternalApiException(
-                                    "Location not found", 
-                                    HttpStatus.NOT_FOUND.value()
-                            ))
-                    )
-                    .onStatus(
-                            status -> status.is4xxClientError(),
-                            clientResponse -> clientResponse.bodyToMono(String.class)
-                                    .flatMap(body -> Mono.error(new ExternalApiException(
-                                            "Client error: " + body, 
-                                            clientResponse.statusCode().value()
-                                    )))
-                    )
-                    .onStatus(
-                            status -> status.is5xxServerError(),
-                            clientResponse -> Mono.error(new ExternalApiException(
-                                    "OpenWeather API server error", 
-                                    clientResponse.statusCode().value()
-                            ))
-                    )
-                    .bodyToMono(OpenWeatherResponse.class)
-                    .block();
-
-            if (response == null) {
-                throw new ExternalApiException(
+    public Mono<OpenWeatherResponse> fetchWeatherData(BigDecimal latitude, BigDecimal longitude) {
+        return fetch(latitude, longitude, body -> body.bodyToMono(OpenWeatherResponse.class));
+    }
+
+    /**
+     * Fetches the same payload as {@link #fetchWeatherData} but decodes it straight into the
+     * response views with {@link OpenWeatherSnapshotDecoder}.
+     */
+    public Mono<WeatherSnapshot> fetchWeatherSnapshot(BigDecimal latitude, BigDecimal longitude) {
+        return fetch(latitude, longitude, body -> body.bodyToMono(DataBuffer.class).map(this::decodeSnapshot));
+    }
+
+    private <T> Mono<T> fetch(BigDecimal latitude, BigDecimal longitude,
+                              Function<WebClient.ResponseSpec, Mono<T>> bodyExtractor) {
+        return Mono.defer(() -> upstreamGuard.guard(timed(requestWeatherData(latitude, longitude, bodyExtractor))))
+                .retryWhen(upstreamGuard.retrySpec(maxAttempts));
+    }
+
+    /**
+     * Records each attempt that reaches the upstream in {@code weather.upstream.requests}, tagged
+     * with the HTTP status and outcome; attempts that got no response are tagged {@code UNKNOWN}.
+     */
+    private <T> Mono<T> timed(Mono<T> attempt) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return attempt
+                    .doOnSuccess(value -> recordAttempt(start, HttpStatus.OK.value()))
+                    .doOnError(error -> recordAttempt(start, responseStatus(error)));
+        });
+    }
+
+    private void recordAttempt(long start, int status) {
+        attemptTimers.computeIfAbsent(status, this::attemptTimer)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer attemptTimer(int status) {
+        return Timer.builder("weather.upstream.requests")
+                .tag("status", status > 0 ? String.valueOf(status) : "none")
+                .tag("outcome", status > 0 ? Outcome.forStatus(status).name() : Outcome.UNKNOWN.name())
+                .description("OpenWeather request attempts, including retries")
+                .publishPercentileHistogram()
+                .maximumExpectedValue(timeout)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Status of the upstream response behind {@code error}, or 0 if no response was received.
+     */
+    private static int responseStatus(Throwable error) {
+        if (error instanceof ExternalApiException apiException
+                && (apiException.getCause() == null || apiException.getCause() instanceof WebClientResponseException)) {
+            return apiException.getStatusCode();
+        }
+        return 0;
+    }
+
+    private <T> Mono<T> requestWeatherData(BigDecimal latitude, BigDecimal longitude,
+                                          Function<WebClient.ResponseSpec, Mono<T>> bodyExtractor) {
+        WebClient.ResponseSpec response = webClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/onecall")
+                        .queryParam("lat", latitude)
+                        .queryParam("lon", longitude)
+                        .queryParam("appid", apiKey)
+                        .queryParam("units", "metric")
+                        .queryParam("exclude", "minutely,alerts")
+                        .build())
+                .retrieve()
+                .onStatus(
+                        status -> status.value() == HttpStatus.UNAUTHORIZED.value(),
+                        clientResponse -> Mono.error(new ExternalApiException(
+                                "Invalid API key", 
+                                HttpStatus.UNAUTHORIZED.value()
+                        ))
+                )
+                .onStatus(
+                        status -> status.value() == HttpStatus.NOT_FOUND.value(),
+                        clientResponse -> Mono.error(new ExternalApiException(
+                                "Location not found", 
+                                HttpStatus.NOT_FOUND.value()
+                        ))
+                )
+                .onStatus(
+                        status -> status.is4xxClientError(),
+                        clientResponse -> clientResponse.bodyToMono(String.class)
+                                .flatMap(body -> Mono.error(new ExternalApiException(
+                                        "Client error: " + body, 
+                                        clientResponse.statusCode().value()
+                                )))
+                )
+                .onStatus(
+                        status -> status.is5xxServerError(),
+                        clientResponse -> Mono.error(new ExternalApiException(
+                                "OpenWeather API server error", 
+                                clientResponse.statusCode().value()
+                        ))
+                );
+
+        return bodyExtractor.apply(response)
+                .switchIfEmpty(Mono.error(() -> new ExternalApiException(
                         "Empty response from OpenWeather API", 
                         HttpStatus.NO_CONTENT.value()
-                );
-            }
+                )))
+                .onErrorMap(e -> !(e instanceof ExternalApiException), this::toExternalApiException);
+    }
 
-            log.info("Successfully fetched weather data from external API");
-            return response;
+    private WeatherSnapshot decodeSnapshot(DataBuffer buffer) {
+        long start = System.nanoTime();
+        try (InputStream body = buffer.asInputStream(true)) {
+            return snapshotDecoder.decode(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode OpenWeather response", e);
+        } finally {
+            decodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
 
-        } catch (WebClientResponseException e) {
+    private ExternalApiException toExternalApiException(Throwable e) {
+        if (e instanceof WebClientResponseException responseException) {
             log.error("WebClient error: status={}, body={}", 
-                     e.getStatusCode(), e.getResponseBodyAsString(), e);
-            throw new ExternalApiException(
+                     responseException.getStatusCode(), responseException.getResponseBodyAsString(), e);
+            return new ExternalApiException(
                     "Failed to fetch weather data: " + e.getMessage(), 
-                    e.getStatusCode().value(), 
+                    responseException.getStatusCode().value(), 
                     e
             );
-        } catch (Exception e) {
-            log.error("Unexpected error calling OpenWeather API", e);
-            throw new ExternalApiException(
-                    "Unexpected error: " + e.getMessage(), 
-                    HttpStatus.INTERNAL_SERVER_ERROR.value(), 
+        }
+
+        if (e instanceof UncheckedIOException || e instanceof CodecException) {
+            log.error("Malformed response from OpenWeather API", e);
+            return new MalformedUpstreamResponseException(
+                    "Failed to decode OpenWeather response: " + e.getMessage(),
                     e
             );
         }
+
+        log.error("Unexpected error calling OpenWeather API", e);
+        return new ExternalApiException(
+                "Unexpected error: " + e.getMessage(), 
+                HttpStatus.INTERNAL_SERVER_ERROR.value(), 
+                e
+        );
     }
 }
@@ -0,0 +1,315 @@
+package com.weatherapp.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weatherapp.dto.CurrentWeatherResponse;
+import com.weatherapp.dto.DailyWeatherResponse;
+import com.weatherapp.dto.HourlyWeatherResponse;
+import com.weatherapp.dto.WeatherSnapshot;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams an OpenWeather {@code /onecall} payload straight into a {@link WeatherSnapshot}.
+ * Produces the same views as {@code WeatherDataMapper.mapToWeatherSnapshotFromApi}, but never
+ * builds the intermediate {@code OpenWeatherResponse} tree: unused fields are skipped token by
+ * token and forecast arrays are trimmed while parsing.
+ */
+@Component
+public class OpenWeatherSnapshotDecoder {
+
+    static final int HOURLY_LIMIT = 24;
+    static final int DAILY_LIMIT = 7;
+    private static final String DATA_SOURCE = "external_api";
+
+    private final JsonFactory jsonFactory;
+
+    public OpenWeatherSnapshotDecoder(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    public WeatherSnapshot decode(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object from OpenWeather API");
+            }
+
+            WeatherSnapshot snapshot = new WeatherSnapshot();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "current" -> snapshot.setCurrent(token == JsonToken.START_OBJECT ? readCurrent(parser, snapshot) : null);
+                    case "hourly" -> snapshot.setHourly(token == JsonToken.START_ARRAY ? readHourly(parser) : null);
+                    case "daily" -> snapshot.setDaily(token == JsonToken.START_ARRAY ? readDaily(parser) : null);
+                    default -> parser.skipChildren();
+                }
+            }
+            return snapshot;
+        }
+    }
+
+    private CurrentWeatherResponse readCurrent(JsonParser parser, WeatherSnapshot snapshot) throws IOException {
+        CurrentWeatherResponse current = new CurrentWeatherResponse();
+        String[] condition = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "dt" -> {
+                    Long epochSeconds = readLong(parser);
+                    snapshot.setUpstreamTimestamp(epochSeconds);
+                    current.setTimestamp(toDateTime(epochSeconds));
+                }
+                case "temp" -> current.setTemperature(readDouble(parser));
+                case "feels_like" -> current.setFeelsLike(readDouble(parser));
+                case "pressure" -> current.setPressure(readInteger(parser));
+                case "humidity" -> current.setHumidity(readInteger(parser));
+                case "dew_point" -> current.setDewPoint(readDouble(parser));
+                case "clouds" -> current.setClouds(readInteger(parser));
+                case "visibility" -> current.setVisibility(readDouble(parser));
+                case "wind_speed" -> current.setWindSpeed(readDouble(parser));
+                case "wind_deg" -> current.setWindDeg(readInteger(parser));
+                case "wind_gust" -> current.setWindGust(readDouble(parser));
+                case "weather" -> condition = readCondition(parser);
+                default -> parser.skipChildren();
+            }
+        }
+
+        current.setWeather(new CurrentWeatherResponse.WeatherCondition(
+                conditionPart(condition, 0), conditionPart(condition, 1), conditionPart(condition, 2)));
+        current.setDataSource(DATA_SOURCE);
+        return current;
+    }
+
+    private HourlyWeatherResponse readHourly(JsonParser parser) throws IOException {
+        List<HourlyWeatherResponse.HourlyForecast> forecasts = new ArrayList<>(HOURLY_LIMIT);
+
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (forecasts.size() >= HOURLY_LIMIT || parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            forecasts.add(readHourlyForecast(parser));
+        }
+
+        return forecasts.isEmpty() ? null : new HourlyWeatherResponse(forecasts.size(), forecasts, DATA_SOURCE);
+    }
+
+    private HourlyWeatherResponse.HourlyForecast readHourlyForecast(JsonParser parser) throws IOException {
+        HourlyWeatherResponse.HourlyForecast hourly = new HourlyWeatherResponse.HourlyForecast();
+        String[] condition = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "dt" -> hourly.setForecastTime(readDateTime(parser));
+                case "temp" -> hourly.setTemperature(readDouble(parser));
+                case "feels_like" -> hourly.setFeelsLike(readDouble(parser));
+                case "pressure" -> hourly.setPressure(readInteger(parser));
+                case "humidity" -> hourly.setHumidity(readInteger(parser));
+                case "dew_point" -> hourly.setDewPoint(readDouble(parser));
+                case "clouds" -> hourly.setClouds(readInteger(parser));
+                case "visibility" -> hourly.setVisibility(readDouble(parser));
+                case "wind_speed" -> hourly.setWindSpeed(readDouble(parser));
+                case "wind_deg" -> hourly.setWindDeg(readInteger(parser));
+                case "wind_gust" -> hourly.setWindGust(readDouble(parser));
+                case "weather" -> condition = readCondition(parser);
+                case "pop" -> hourly.setProbabilityOfPrecipitation(readDouble(parser));
+                case "rain" -> hourly.setRain1h(readOneHour(parser));
+                case "snow" -> hourly.setSnow1h(readOneHour(parser));
+                default -> parser.skipChildren();
+            }
+        }
+
+        hourly.setWeather(new HourlyWeatherResponse.WeatherCondition(
+                conditionPart(condition, 0), conditionPart(condition, 1), conditionPart(condition, 2)));
+        return hourly;
+    }
+
+    private DailyWeatherResponse readDaily(JsonParser parser) throws IOException {
+        List<DailyWeatherResponse.DailyForecast> forecasts = new ArrayList<>(DAILY_LIMIT);
+
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (forecasts.size() >= DAILY_LIMIT || parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            forecasts.add(readDailyForecast(parser));
+        }
+
+        return forecasts.isEmpty() ? null : new DailyWeatherResponse(forecasts.size(), forecasts, DATA_SOURCE);
+    }
+
+    private DailyWeatherResponse.DailyForecast readDailyForecast(JsonParser parser) throws IOException {
+        DailyWeatherResponse.DailyForecast daily = new DailyWeatherResponse.DailyForecast();
+        DailyWeatherResponse.Temperature temperature = new DailyWeatherResponse.Temperature();
+        DailyWeatherResponse.FeelsLike feelsLike = new DailyWeatherResponse.FeelsLike();
+        String[] condition = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "dt" -> daily.setForecastDate(readDateTime(parser));
+                case "temp" -> readTemperature(parser, temperature);
+                case "feels_like" -> readFeelsLike(parser, feelsLike);
+                case "pressure" -> daily.setPressure(readInteger(parser));
+                case "humidity" -> daily.setHumidity(readInteger(parser));
+                case "dew_point" -> daily.setDewPoint(readDouble(parser));
+                case "wind_speed" -> daily.setWindSpeed(readDouble(parser));
+                case "wind_deg" -> daily.setWindDeg(readInteger(parser));
+                case "wind_gust" -> daily.setWindGust(readDouble(parser));
+                case "clouds" -> daily.setClouds(readInteger(parser));
+                case "pop" -> daily.setProbabilityOfPrecipitation(readDouble(parser));
+                case "rain" -> daily.setRain(readDouble(parser));
+                case "snow" -> daily.setSnow(readDouble(parser));
+                case "weather" -> condition = readCondition(parser);
+                default -> parser.skipChildren();
+            }
+        }
+
+        daily.setTemperature(temperature);
+        daily.setFeelsLike(feelsLike);
+        daily.setWeather(new DailyWeatherResponse.WeatherCondition(
+                conditionPart(condition, 0), conditionPart(condition, 1), conditionPart(condition, 2)));
+        return daily;
+    }
+
+    private void readTemperature(JsonParser parser, DailyWeatherResponse.Temperature temperature) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "morn" -> temperature.setMorning(readDouble(parser));
+                case "day" -> temperature.setDay(readDouble(parser));
+                case "eve" -> temperature.setEvening(readDouble(parser));
+                case "night" -> temperature.setNight(readDouble(parser));
+                case "min" -> temperature.setMin(readDouble(parser));
+                case "max" -> temperature.setMax(readDouble(parser));
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private void readFeelsLike(JsonParser parser, DailyWeatherResponse.FeelsLike feelsLike) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "morn" -> feelsLike.setMorning(readDouble(parser));
+                case "day" -> feelsLike.setDay(readDouble(parser));
+                case "eve" -> feelsLike.setEvening(readDouble(parser));
+                case "night" -> feelsLike.setNight(readDouble(parser));
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Reads the first entry of a {@code weather} array as {@code [main, description, icon]}
+     * and skips the rest; returns {@code null} for a missing or empty array.
+     */
+    private String[] readCondition(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+
+        String[] condition = null;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (condition != null || parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            condition = new String[3];
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "main" -> condition[0] = readString(parser);
+                    case "description" -> condition[1] = readString(parser);
+                    case "icon" -> condition[2] = readString(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return condition;
+    }
+
+    private Double readOneHour(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+
+        Double oneHour = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("1h".equals(field)) {
+                oneHour = readDouble(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return oneHour;
+    }
+
+    private static String conditionPart(String[] condition, int index) {
+        return condition != null ? condition[index] : null;
+    }
+
+    private static LocalDateTime readDateTime(JsonParser parser) throws IOException {
+        return toDateTime(readLong(parser));
+    }
+
+    private static LocalDateTime toDateTime(Long epochSeconds) {
+        return epochSeconds != null
+                ? LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSeconds), ZoneId.systemDefault())
+                : null;
+    }
+
+    private static Long readLong(JsonParser parser) throws IOException {
+        Long value = parser.currentToken().isNumeric() ? parser.getLongValue() : null;
+        parser.skipChildren();
+        return value;
+    }
+
+    private static Double readDouble(JsonParser parser) throws IOException {
+        Double value = parser.currentToken().isNumeric() ? parser.getDoubleValue() : null;
+        parser.skipChildren();
+        return value;
+    }
+
+    private static Integer readInteger(JsonParser parser) throws IOException {
+        Integer value = parser.currentToken().isNumeric() ? parser.getIntValue() : null;
+        parser.skipChildren();
+        return value;
+    }
+
+    private static String readString(JsonParser parser) throws IOException {
+        String value = parser.currentToken() == JsonToken.VALUE_STRING ? parser.getText() : null;
+        parser.skipChildren();
+        return value;
+    }
+}
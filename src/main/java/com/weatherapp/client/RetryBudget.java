@@ -0,0 +1,49 @@
+package com.weatherapp.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps retries to a fraction of original calls: every call deposits {@code ratio} of a retry,
+ * every retry withdraws a whole one, and the balance is bounded so a quiet period cannot bank
+ * an unlimited retry storm.
+ */
+public class RetryBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long depositPerCall;
+    private final long maxBalance;
+    private final AtomicLong balance;
+
+    public RetryBudget(double ratio, int maxRetries) {
+        this.depositPerCall = Math.round(ratio * SCALE);
+        this.maxBalance = maxRetries * SCALE;
+        this.balance = new AtomicLong(maxBalance);
+    }
+
+    public void deposit() {
+        balance.accumulateAndGet(depositPerCall, (current, amount) -> Math.min(maxBalance, current + amount));
+    }
+
+    public boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+
+    /**
+     * Returns a withdrawn retry that was not taken after all.
+     */
+    public void refund() {
+        balance.accumulateAndGet(SCALE, (current, amount) -> Math.min(maxBalance, current + amount));
+    }
+
+    public double getAvailableRetries() {
+        return (double) balance.get() / SCALE;
+    }
+}
@@ -0,0 +1,206 @@
+package com.weatherapp.client;
+
+import com.weatherapp.exception.ExternalApiException;
+import com.weatherapp.exception.MalformedUpstreamResponseException;
+import com.weatherapp.exception.UpstreamUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Protects the upstream during brownouts: every attempt passes the circuit breaker and the
+ * adaptive concurrency limit or fails fast with {@link UpstreamUnavailableException}, which the
+ * snapshot loader answers with stale data where it has any. Retries back off exponentially with
+ * jitter and are only taken while both the retry budget and the daily quota allow.
+ */
+@Slf4j
+@Component
+public class UpstreamGuard {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final UpstreamCircuitBreaker circuitBreaker;
+    private final RetryBudget retryBudget;
+    private final UpstreamQuota upstreamQuota;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final double jitter;
+    private final Counter circuitRejections;
+    private final Counter limitRejections;
+    private final Counter retriesScheduled;
+    private final Counter retriesDenied;
+    private final Counter retriesOverQuota;
+
+    public UpstreamGuard(
+            UpstreamQuota upstreamQuota,
+            @Value("${weather.api.retry-delay-ms}") long retryDelayMs,
+            @Value("${weather.api.resilience.max-backoff-ms}") long maxBackoffMs,
+            @Value("${weather.api.resilience.jitter}") double jitter,
+            @Value("${weather.api.resilience.retry-budget.ratio}") double retryBudgetRatio,
+            @Value("${weather.api.resilience.retry-budget.max-retries}") int retryBudgetMax,
+            @Value("${weather.api.resilience.limiter.initial-limit}") int initialLimit,
+            @Value("${weather.api.resilience.limiter.min-limit}") int minLimit,
+            @Value("${weather.api.resilience.limiter.max-limit}") int maxLimit,
+            @Value("${weather.api.resilience.limiter.backoff-ratio}") double backoffRatio,
+            @Value("${weather.api.resilience.limiter.latency-tolerance}") double latencyTolerance,
+            @Value("${weather.api.resilience.circuit-breaker.window-size}") int windowSize,
+            @Value("${weather.api.resilience.circuit-breaker.minimum-calls}") int minimumCalls,
+            @Value("${weather.api.resilience.circuit-breaker.failure-rate-threshold}") double failureRateThreshold,
+            @Value("${weather.api.resilience.circuit-breaker.open-seconds}") long openSeconds,
+            @Value("${weather.api.resilience.circuit-breaker.half-open-trials}") int halfOpenTrials,
+            MeterRegistry meterRegistry) {
+        this.limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, backoffRatio, latencyTolerance);
+        this.circuitBreaker = new UpstreamCircuitBreaker(windowSize, minimumCalls, failureRateThreshold,
+                Duration.ofSeconds(openSeconds), halfOpenTrials);
+        this.retryBudget = new RetryBudget(retryBudgetRatio, retryBudgetMax);
+        this.upstreamQuota = upstreamQuota;
+        this.initialBackoff = Duration.ofMillis(retryDelayMs);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMs);
+        this.jitter = jitter;
+
+        Gauge.builder("weather.upstream.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive limit on concurrent upstream calls")
+                .register(meterRegistry);
+        Gauge.builder("weather.upstream.concurrency.in_flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Upstream calls currently in flight")
+                .register(meterRegistry);
+        Gauge.builder("weather.upstream.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("Circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+        Gauge.builder("weather.upstream.retry_budget.available", retryBudget, RetryBudget::getAvailableRetries)
+                .description("Retries the budget currently allows")
+                .register(meterRegistry);
+        this.circuitRejections = Counter.builder("weather.upstream.rejected")
+                .tag("reason", "circuit_open")
+                .description("Upstream calls failed fast without being sent")
+                .register(meterRegistry);
+        this.limitRejections = Counter.builder("weather.upstream.rejected")
+                .tag("reason", "concurrency_limit")
+                .description("Upstream calls failed fast without being sent")
+                .register(meterRegistry);
+        this.retriesScheduled = Counter.builder("weather.upstream.retries")
+                .tag("outcome", "scheduled")
+                .description("Upstream retries scheduled, or denied by the retry budget or the quota")
+                .register(meterRegistry);
+        this.retriesDenied = Counter.builder("weather.upstream.retries")
+                .tag("outcome", "budget_exhausted")
+                .description("Upstream retries scheduled, or denied by the retry budget or the quota")
+                .register(meterRegistry);
+        this.retriesOverQuota = Counter.builder("weather.upstream.retries")
+                .tag("outcome", "quota_exhausted")
+                .description("Upstream retries scheduled, or denied by the retry budget or the quota")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Wraps a single attempt. The attempt is only subscribed once it holds a circuit breaker
+     * permission and a concurrency permit, and its outcome feeds both.
+     */
+    public <T> Mono<T> guard(Mono<T> attempt) {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                circuitRejections.increment();
+                return Mono.error(new UpstreamUnavailableException("OpenWeather circuit breaker is open"));
+            }
+            if (!limiter.tryAcquire()) {
+                circuitBreaker.onIgnored();
+                limitRejections.increment();
+                return Mono.error(new UpstreamUnavailableException("OpenWeather concurrency limit reached"));
+            }
+
+            long start = System.nanoTime();
+            AtomicBoolean settled = new AtomicBoolean();
+            return attempt
+                    .doOnNext(value -> settle(settled, start, null))
+                    .doOnError(error -> settle(settled, start, error))
+                    .doOnCancel(() -> {
+                        if (settled.compareAndSet(false, true)) {
+                            limiter.ignore();
+                            circuitBreaker.onIgnored();
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Retry policy for a whole call of up to {@code maxAttempts} attempts; counts the call
+     * towards the retry budget when invoked.
+     */
+    public Retry retrySpec(int maxAttempts) {
+        retryBudget.deposit();
+        return Retry.backoff(Math.max(0, maxAttempts - 1), initialBackoff)
+                .maxBackoff(maxBackoff)
+                .jitter(jitter)
+                .filter(UpstreamGuard::isOverload)
+                .doBeforeRetryAsync(signal -> admitRetry(signal.failure()))
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    /**
+     * Takes a retry from the budget, then from the quota, refunding the budget if the quota
+     * refuses; a refused retry fails with the attempt's own error. The quota may be counted in
+     * the shared store, so it is asked on a bounded elastic worker rather than the event loop.
+     */
+    private Mono<Void> admitRetry(Throwable failure) {
+        if (!retryBudget.tryWithdraw()) {
+            retriesDenied.increment();
+            log.debug("Retry budget exhausted, not retrying upstream call");
+            return Mono.error(failure);
+        }
+        if (!upstreamQuota.isEnabled()) {
+            retriesScheduled.increment();
+            return Mono.empty();
+        }
+
+        return Mono.fromCallable(upstreamQuota::tryAcquireRetry)
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(admitted -> {
+                    if (admitted) {
+                        retriesScheduled.increment();
+                        return Mono.<Void>empty();
+                    }
+                    retryBudget.refund();
+                    retriesOverQuota.increment();
+                    log.debug("Upstream quota exhausted, not retrying upstream call");
+                    return Mono.error(failure);
+                });
+    }
+
+    private void settle(AtomicBoolean settled, long start, Throwable error) {
+        if (!settled.compareAndSet(false, true)) {
+            return;
+        }
+
+        boolean overload = error != null && isOverload(error);
+        limiter.release(System.nanoTime() - start, overload);
+        if (overload) {
+            circuitBreaker.onFailure();
+        } else {
+            circuitBreaker.onSuccess();
+        }
+    }
+
+    /**
+     * Server errors, throttling and transport failures (mapped to 500) mean the upstream is
+     * struggling; other client errors and undecodable responses are answered normally and are
+     * not worth retrying.
+     */
+    private static boolean isOverload(Throwable error) {
+        if (!(error instanceof ExternalApiException apiException)
+                || error instanceof UpstreamUnavailableException
+                || error instanceof MalformedUpstreamResponseException) {
+            return false;
+        }
+        int status = apiException.getStatusCode();
+        return status >= 500 || status == HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+}
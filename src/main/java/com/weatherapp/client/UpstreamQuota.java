@@ -0,0 +1,214 @@
+package com.weatherapp.client;
+
+import com.weatherapp.shared.SharedStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Paces upstream calls against the provider's daily quota. Budget health compares the share of
+ * the quota left with the share of the day left. A health below 1 means the quota would run out
+ * before the window resets. Then fetches that could be answered from stale data are limited to
+ * hot locations, and below the critical health to none, while the cache TTL is stretched by
+ * up to {@code max-ttl-extension}. Calls are counted in the shared store when one is
+ * configured, so all replicas draw from one budget. The TTL extension is read on every cache
+ * lookup, so it is recomputed whenever a call is counted and every {@code pace-interval-ms}
+ * rather than on each read.
+ */
+@Slf4j
+@Component
+public class UpstreamQuota {
+
+    /**
+     * Why an upstream fetch is wanted, in decreasing priority.
+     */
+    public enum Demand {
+        /** A request is waiting and there is nothing cached to serve instead. */
+        REQUIRED,
+        /** A request is waiting but an expired copy could be served. */
+        STALE_AVAILABLE,
+        /** Refresh-ahead or prefetch; no request is waiting. */
+        BACKGROUND
+    }
+
+    private static final String COUNTER_PREFIX = "weather:quota:";
+
+    private final SharedStore store;
+    private final long dailyLimit;
+    private final ZoneId resetZone;
+    private final double pacingSlack;
+    private final double criticalHealth;
+    private final double maxTtlExtension;
+    private final Map<Demand, Counter> denied = new EnumMap<>(Demand.class);
+
+    private LocalDate window;
+    private long used;
+    private volatile double ttlExtension = 1.0;
+
+    public UpstreamQuota(
+            ObjectProvider<SharedStore> store,
+            @Value("${weather.api.quota.daily-limit}") long dailyLimit,
+            @Value("${weather.api.quota.reset-zone}") String resetZone,
+            @Value("${weather.api.quota.pacing-slack}") double pacingSlack,
+            @Value("${weather.api.quota.critical-health}") double criticalHealth,
+            @Value("${weather.api.quota.max-ttl-extension}") double maxTtlExtension,
+            MeterRegistry meterRegistry) {
+        this.store = store.getIfAvailable();
+        this.dailyLimit = dailyLimit;
+        this.resetZone = ZoneId.of(resetZone);
+        this.pacingSlack = pacingSlack;
+        this.criticalHealth = criticalHealth;
+        this.maxTtlExtension = Math.max(1.0, maxTtlExtension);
+        this.window = LocalDate.now(this.resetZone);
+
+        Gauge.builder("weather.upstream.quota.remaining", this, UpstreamQuota::remaining)
+                .description("Upstream calls left in the current quota window")
+                .register(meterRegistry);
+        Gauge.builder("weather.upstream.quota.ttl_extension", this, UpstreamQuota::ttlExtension)
+                .description("Factor currently applied to the cache TTL to save quota")
+                .register(meterRegistry);
+        for (Demand demand : Demand.values()) {
+            denied.put(demand, Counter.builder("weather.upstream.quota.denied")
+                    .tag("demand", demand.name().toLowerCase())
+                    .description("Upstream fetches withheld to protect the daily quota")
+                    .register(meterRegistry));
+        }
+        updateTtlExtension();
+    }
+
+    public boolean isEnabled() {
+        return dailyLimit > 0;
+    }
+
+    /**
+     * Whether a fetch of this priority would currently be allowed, without counting it.
+     */
+    public boolean allows(Demand demand, boolean hot) {
+        if (!isEnabled()) {
+            return true;
+        }
+        long remaining = remaining();
+        if (remaining <= 0) {
+            return false;
+        }
+
+        double health = health(remaining);
+        if (health >= 1.0 || demand == Demand.REQUIRED) {
+            return true;
+        }
+        return hot && health >= criticalHealth;
+    }
+
+    /**
+     * Admits and counts one upstream call, or records a denial.
+     */
+    public boolean tryAcquire(Demand demand, boolean hot) {
+        if (!isEnabled()) {
+            return true;
+        }
+        if (allows(demand, hot) && consume()) {
+            return true;
+        }
+        denied.get(demand).increment();
+        return false;
+    }
+
+    /**
+     * Counts a retry of an already admitted call; refused only once the quota is exhausted. May
+     * block on the shared store.
+     */
+    public boolean tryAcquireRetry() {
+        return !isEnabled() || consume();
+    }
+
+    public synchronized long remaining() {
+        rollWindow();
+        return Math.max(0, dailyLimit - used);
+    }
+
+    /**
+     * 1 while the budget is on pace, rising towards {@code max-ttl-extension} as it falls behind.
+     */
+    public double ttlExtension() {
+        return ttlExtension;
+    }
+
+    /**
+     * Recomputes the TTL extension, which also moves as the day passes without any calls.
+     */
+    @Scheduled(fixedRateString = "${weather.api.quota.pace-interval-ms}")
+    public void updateTtlExtension() {
+        if (!isEnabled()) {
+            return;
+        }
+        long remaining = remaining();
+        if (remaining <= 0) {
+            ttlExtension = maxTtlExtension;
+            return;
+        }
+        double health = health(remaining);
+        ttlExtension = health >= 1.0 ? 1.0 : Math.min(maxTtlExtension, 1.0 / Math.max(health, 1e-3));
+    }
+
+    private double health(long remaining) {
+        ZonedDateTime now = ZonedDateTime.now(resetZone);
+        ZonedDateTime reset = now.toLocalDate().plusDays(1).atStartOfDay(resetZone);
+        double dayLeft = (double) Duration.between(now, reset).toMillis() / Duration.ofDays(1).toMillis();
+        double quotaLeft = (double) remaining / dailyLimit;
+        return (quotaLeft + pacingSlack) / Math.max(dayLeft, 1e-3);
+    }
+
+    /**
+     * Counts one call with a single atomic increment of the shared counter, refusing it once the
+     * count passes the limit. Without the store, or while it is unreachable, the local count is
+     * used and the limit still holds for this replica.
+     */
+    private boolean consume() {
+        if (store != null) {
+            try {
+                long count = store.increment(COUNTER_PREFIX + LocalDate.now(resetZone), Duration.ofDays(2));
+                observe(Math.min(count, dailyLimit));
+                updateTtlExtension();
+                return count <= dailyLimit;
+            } catch (RuntimeException e) {
+                log.warn("Shared quota counter unavailable, counting call locally: {}", e.getMessage());
+            }
+        }
+
+        boolean admitted;
+        synchronized (this) {
+            rollWindow();
+            admitted = used < dailyLimit;
+            if (admitted) {
+                used++;
+            }
+        }
+        updateTtlExtension();
+        return admitted;
+    }
+
+    private synchronized void observe(long sharedCount) {
+        rollWindow();
+        used = sharedCount;
+    }
+
+    private void rollWindow() {
+        LocalDate today = LocalDate.now(resetZone);
+        if (!today.equals(window)) {
+            window = today;
+            used = 0;
+        }
+    }
+}
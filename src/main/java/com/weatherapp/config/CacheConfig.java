@@ -1,45 +1,110 @@
 package com.weatherapp.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import com.weatherapp.cache.LocationKeyGenerator;
+import com.weatherapp.cache.RefreshAheadCache;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CachingConfigurer;
-import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.cache.interceptor.CacheErrorHandler;
 import org.springframework.cache.interceptor.SimpleCacheErrorHandler;
+import org.springframework.cache.support.SimpleCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.concurrent.TimeUnit;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
 
 @Slf4j
 @Configuration
 public class CacheConfig implements CachingConfigurer {
 
+    public static final String CURRENT_WEATHER_CACHE = "currentWeather";
+    public static final String HOURLY_FORECAST_CACHE = "hourlyForecast";
+    public static final String DAILY_FORECAST_CACHE = "dailyForecast";
+    public static final String LOCATION_KEY_GENERATOR = "locationKeyGenerator";
+
     @Value("${weather.cache.ttl-minutes}")
     private long cacheTtlMinutes;
 
+    @Value("${weather.cache.maximum-size}")
+    private long maximumSize;
+
+    @Value("${weather.cache.location-grid-degrees}")
+    private BigDecimal locationGridDegrees;
+
+    @Value("${weather.cache.refresh-ahead.enabled}")
+    private boolean refreshAheadEnabled;
+
+    @Value("${weather.cache.refresh-ahead.soft-ttl-minutes}")
+    private long softTtlMinutes;
+
+    @Value("${weather.cache.stale-if-error.enabled}")
+    private boolean staleIfErrorEnabled;
+
+    @Value("${weather.cache.stale-if-error.max-stale-minutes}")
+    private long maxStaleMinutes;
+
     @Bean
     @Override
     public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager(
-                "currentWeather",
-                "hourlyForecast",
-                "dailyForecast"
-        );
-        
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                .maximumSize(1000)
-                .expireAfterWrite(cacheTtlMinutes, TimeUnit.MINUTES)
-                .recordStats()
-                .removalListener((key, value, cause) -> 
-                    log.debug("Cache entry removed: key={}, cause={}", key, cause)
-                ));
-        
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(
+                weatherCache(CURRENT_WEATHER_CACHE),
+                weatherCache(HOURLY_FORECAST_CACHE),
+                weatherCache(DAILY_FORECAST_CACHE)
+        ));
         return cacheManager;
     }
 
+    /**
+     * Lets the actuator bind {@code cache.gets}, {@code cache.puts}, {@code cache.evictions} and
+     * {@code cache.load} meters to the view caches, which it does not recognise as Caffeine caches.
+     */
+    @Bean
+    public CacheMeterBinderProvider<RefreshAheadCache> refreshAheadCacheMeterBinderProvider() {
+        return (cache, tags) -> caffeineMetrics((Cache<?, ?>) cache.getNativeCache(), cache.getName(), tags);
+    }
+
+    private static <K, V> MeterBinder caffeineMetrics(Cache<K, V> store, String name, Iterable<Tag> tags) {
+        return new CaffeineCacheMetrics<>(store, name, tags);
+    }
+
+    @Bean(LOCATION_KEY_GENERATOR)
+    public LocationKeyGenerator locationKeyGenerator() {
+        return new LocationKeyGenerator(locationGridDegrees);
+    }
+
+    private RefreshAheadCache weatherCache(String name) {
+        Duration ttl = Duration.ofMinutes(cacheTtlMinutes);
+        Duration refreshAfter = refreshAheadEnabled && softTtlMinutes < cacheTtlMinutes
+                ? Duration.ofMinutes(softTtlMinutes)
+                : ttl;
+        Duration hardExpiry = staleIfErrorEnabled
+                ? ttl.plusMinutes(maxStaleMinutes)
+                : ttl;
+
+        StatsCounter statsCounter = new ConcurrentStatsCounter();
+        return new RefreshAheadCache(name, Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(hardExpiry)
+                .recordStats(() -> statsCounter)
+                .removalListener((key, value, cause) ->
+                    log.debug("Cache entry removed: cache={}, key={}, cause={}", name, key, cause)
+                )
+                .<Object, RefreshAheadCache.CacheEntry>build(),
+                statsCounter, refreshAfter, ttl, hardExpiry);
+    }
+
     @Override
     public CacheErrorHandler errorHandler() {
         return new SimpleCacheErrorHandler() {
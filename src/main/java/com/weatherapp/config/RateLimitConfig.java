@@ -1,35 +1,96 @@
 package com.weatherapp.config;
 
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
-import io.github.bucket4j.BucketConfiguration;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.weatherapp.ratelimit.Bucket4jRateLimitBucket;
+import com.weatherapp.ratelimit.CompactTokenBucket;
+import com.weatherapp.ratelimit.RateLimitBucket;
+import com.weatherapp.ratelimit.RateLimitBucketFactory;
+import com.weatherapp.shared.SharedStore;
+import com.weatherapp.shared.SharedStoreProxyManager;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.Supplier;
 
 @Configuration
 public class RateLimitConfig {
 
-    @Value("${weather.rate-limit.requests-per-minute}")
-    private long requestsPerMinute;
+    @Value("${weather.rate-limit.max-buckets}")
+    private long maxBuckets;
 
+    @Value("${weather.rate-limit.distributed.enabled}")
+    private boolean distributed;
+
+    @Value("${weather.rate-limit.distributed.max-unsynchronized-tokens}")
+    private long maxUnsynchronizedTokens;
+
+    @Value("${weather.rate-limit.distributed.max-unsynchronized-ms}")
+    private long maxUnsynchronizedMs;
+
+    /**
+     * Per-client buckets, bounded in size and dropped once idle long enough to be full again,
+     * debt included. Expiry is recomputed on every access and after a charge puts a bucket into
+     * debt, so idle expiry does not forgive debt; only size eviction of a busy store can.
+     */
     @Bean
-    public Map<String, Bucket> rateLimitBuckets() {
-        return new ConcurrentHashMap<>();
+    public Cache<String, RateLimitBucket> rateLimitBuckets(MeterRegistry meterRegistry) {
+        Cache<String, RateLimitBucket> buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfter(new Expiry<String, RateLimitBucket>() {
+                    @Override
+                    public long expireAfterCreate(String key, RateLimitBucket bucket, long currentTime) {
+                        return bucket.refillWindow().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, RateLimitBucket bucket,
+                                                  long currentTime, long currentDuration) {
+                        return bucket.refillWindow().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, RateLimitBucket bucket,
+                                                long currentTime, long currentDuration) {
+                        return bucket.refillWindow().toNanos();
+                    }
+                })
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, buckets, "rateLimitBuckets");
     }
 
+    /**
+     * Creates the bucket for a client key under its plan. In distributed mode the bucket is a proxy
+     * over state in the shared store, and each replica consumes up to
+     * {@code max-unsynchronized-tokens} locally before writing its reservations back, so the
+     * store is not hit on every request.
+     */
     @Bean
-    public Supplier<BucketConfiguration> bucketConfiguration() {
-        return () -> {
-            Bandwidth limit = Bandwidth.simple(requestsPerMinute, Duration.ofMinutes(1));
-            return BucketConfiguration.builder()
-                    .addLimit(limit)
-                    .build();
-        };
+    public RateLimitBucketFactory rateLimitBucketFactory(ObjectProvider<SharedStore> sharedStore) {
+        if (!distributed) {
+            return (key, plan) -> new CompactTokenBucket(plan.getLimits());
+        }
+
+        SharedStore store = sharedStore.getIfAvailable();
+        if (store == null) {
+            throw new IllegalStateException(
+                    "weather.rate-limit.distributed.enabled requires weather.shared.backend to be configured");
+        }
+
+        SharedStoreProxyManager proxyManager = new SharedStoreProxyManager(store);
+        DelayParameters delay = new DelayParameters(maxUnsynchronizedTokens, Duration.ofMillis(maxUnsynchronizedMs));
+        return (key, plan) -> new Bucket4jRateLimitBucket(
+                proxyManager.builder()
+                        .withOptimization(Optimizations.delaying(delay))
+                        .build(key, plan.getConfiguration()),
+                plan.getLimits().refillWindow());
     }
 }
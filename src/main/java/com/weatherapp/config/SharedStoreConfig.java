@@ -0,0 +1,34 @@
+package com.weatherapp.config;
+
+import com.weatherapp.shared.InMemorySharedStore;
+import com.weatherapp.shared.RedisSharedStore;
+import com.weatherapp.shared.SharedStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Selects the backend shared between replicas with {@code weather.shared.backend}:
+ * {@code none} (default, every replica stands alone), {@code embedded} (in-process stand-in)
+ * or {@code redis}.
+ */
+@Configuration
+public class SharedStoreConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "weather.shared.backend", havingValue = "embedded")
+    public SharedStore embeddedSharedStore() {
+        return new InMemorySharedStore();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "weather.shared.backend", havingValue = "redis")
+    public SharedStore redisSharedStore(
+            @Value("${weather.shared.redis-uri}") String redisUri,
+            @Value("${weather.shared.redis-timeout-ms}") long redisTimeoutMs) {
+        return new RedisSharedStore(redisUri, Duration.ofMillis(redisTimeoutMs));
+    }
+}
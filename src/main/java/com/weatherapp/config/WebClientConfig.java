@@ -1,8 +1,6 @@
 package com.weatherapp.config;
 
 import io.netty.channel.ChannelOption;
-import io.netty.handler.timeout.ReadTimeoutHandler;
-import io.netty.handler.timeout.WriteTimeoutHandler;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -11,10 +9,11 @@ import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 import java.time.Duration;
-import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Configuration
@@ -26,21 +25,70 @@ public class WebClientConfig {
     @Value("${weather.api.timeout-seconds}")
     private int timeoutSeconds;
 
+    @Value("${weather.api.http.max-connections}")
+    private int maxConnections;
+
+    @Value("${weather.api.http.pending-acquire-max}")
+    private int pendingAcquireMax;
+
+    @Value("${weather.api.http.pending-acquire-timeout-ms}")
+    private long pendingAcquireTimeoutMs;
+
+    @Value("${weather.api.http.max-idle-seconds}")
+    private long maxIdleSeconds;
+
+    @Value("${weather.api.http.max-life-seconds}")
+    private long maxLifeSeconds;
+
+    @Value("${weather.api.http.evict-interval-seconds}")
+    private long evictIntervalSeconds;
+
+    @Value("${weather.api.http.http2-enabled}")
+    private boolean http2Enabled;
+
+    @Value("${weather.api.http.compression-enabled}")
+    private boolean compressionEnabled;
+
+    /**
+     * Dedicated pool for the upstream. Connections idle or older than the configured limits are
+     * evicted in the background, so stale keep-alive connections are not handed out, and pool
+     * metrics are published under {@code reactor.netty.connection.provider}.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider weatherApiConnectionProvider() {
+        return ConnectionProvider.builder("openweather")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMax)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofSeconds(maxIdleSeconds))
+                .maxLifeTime(Duration.ofSeconds(maxLifeSeconds))
+                .evictInBackground(Duration.ofSeconds(evictIntervalSeconds))
+                .metrics(true)
+                .build();
+    }
+
     @Bean
-    public WebClient weatherApiWebClient() {
-        HttpClient httpClient = HttpClient.create()
+    public WebClient weatherApiWebClient(ConnectionProvider weatherApiConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(weatherApiConnectionProvider)
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, timeoutSeconds * 1000)
-                .responseTimeout(Duration.ofSeconds(timeoutSeconds))
-                .doOnConnected(conn -> conn
-                        .addHandlerLast(new ReadTimeoutHandler(timeoutSeconds, TimeUnit.SECONDS))
-                        .addHandlerLast(new WriteTimeoutHandler(timeoutSeconds, TimeUnit.SECONDS)));
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                .compress(compressionEnabled)
+                .responseTimeout(Duration.ofSeconds(timeoutSeconds));
+
+        if (http2Enabled && baseUrl.startsWith("https:")) {
+            // HTTP/2 is negotiated through ALPN, falling back to HTTP/1.1 if the upstream declines
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure();
+        }
 
-        return WebClient.builder()
+        WebClient.Builder builder = WebClient.builder()
                 .baseUrl(baseUrl)
-                .clientConnector(new ReactorClientHttpConnector(httpClient))
-                .filter(logRequest())
-                .filter(logResponse())
-                .build();
+                .clientConnector(new ReactorClientHttpConnector(httpClient));
+        if (log.isDebugEnabled()) {
+            builder.filter(logRequest())
+                    .filter(logResponse());
+        }
+        return builder.build();
     }
 
     private ExchangeFilterFunction logRequest() {
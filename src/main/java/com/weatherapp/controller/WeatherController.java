@@ -1,8 +1,14 @@
 package com.weatherapp.controller;
 
+import com.weatherapp.cache.EncodedResponseCache;
+import com.weatherapp.config.CacheConfig;
+import com.weatherapp.dto.BatchWeatherRequest;
+import com.weatherapp.dto.BatchWeatherResult;
 import com.weatherapp.dto.CurrentWeatherResponse;
 import com.weatherapp.dto.DailyWeatherResponse;
 import com.weatherapp.dto.HourlyWeatherResponse;
+import com.weatherapp.ratelimit.RateLimitCharge;
+import com.weatherapp.service.WeatherBatchService;
 import com.weatherapp.service.WeatherService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,18 +17,28 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
-@Slf4j
 @RestController
 @RequestMapping("/api/weather")
 @RequiredArgsConstructor
@@ -31,6 +47,8 @@ import java.math.BigDecimal;
 public class WeatherController {
 
     private final WeatherService weatherService;
+    private final WeatherBatchService weatherBatchService;
+    private final EncodedResponseCache encodedResponseCache;
 
     @Operation(
             summary = "Get current weather",
@@ -57,7 +75,7 @@ public class WeatherController {
             )
     })
     @GetMapping("/current")
-    public ResponseEntity<CurrentWeatherResponse> getCurrentWeather(
+    public CompletableFuture<ResponseEntity<?>> getCurrentWeather(
             @Parameter(description = "Latitude coordinate (-90 to 90)", example = "40.7128")
             @RequestParam
             @NotNull(message = "Latitude is required")
@@ -70,11 +88,26 @@ public class WeatherController {
             @NotNull(message = "Longitude is required")
             @DecimalMin(value = "-180.0", message = "Longitude must be at least -180")
             @DecimalMax(value = "180.0", message = "Longitude must be at most 180")
-            BigDecimal longitude
+            BigDecimal longitude,
+
+            @Parameter(hidden = true)
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+            String acceptEncoding,
+
+            @Parameter(hidden = true)
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+            String ifNoneMatch,
+
+            @Parameter(hidden = true)
+            @RequestAttribute(name = RateLimitCharge.ATTRIBUTE, required = false)
+            RateLimitCharge rateLimitCharge
     ) {
-        log.info("Received request for current weather: lat={}, lon={}", latitude, longitude);
-        CurrentWeatherResponse response = weatherService.getCurrentWeather(latitude, longitude);
-        return ResponseEntity.ok(response);
+        Instant requestedAt = Instant.now();
+        return weatherService.getCurrentWeather(latitude, longitude)
+                .thenApply(response -> {
+                    chargeCacheMiss(rateLimitCharge, CacheConfig.CURRENT_WEATHER_CACHE, latitude, longitude, response, requestedAt);
+                    return respond(CacheConfig.CURRENT_WEATHER_CACHE, latitude, longitude, response, acceptEncoding, ifNoneMatch);
+                });
     }
 
     @Operation(
@@ -102,7 +135,7 @@ public class WeatherController {
             )
     })
     @GetMapping("/hourly")
-    public ResponseEntity<HourlyWeatherResponse> getHourlyForecast(
+    public CompletableFuture<ResponseEntity<?>> getHourlyForecast(
             @Parameter(description = "Latitude coordinate (-90 to 90)", example = "40.7128")
             @RequestParam
             @NotNull(message = "Latitude is required")
@@ -115,11 +148,26 @@ public class WeatherController {
             @NotNull(message = "Longitude is required")
             @DecimalMin(value = "-180.0", message = "Longitude must be at least -180")
             @DecimalMax(value = "180.0", message = "Longitude must be at most 180")
-            BigDecimal longitude
+            BigDecimal longitude,
+
+            @Parameter(hidden = true)
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+            String acceptEncoding,
+
+            @Parameter(hidden = true)
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+            String ifNoneMatch,
+
+            @Parameter(hidden = true)
+            @RequestAttribute(name = RateLimitCharge.ATTRIBUTE, required = false)
+            RateLimitCharge rateLimitCharge
     ) {
-        log.info("Received request for hourly forecast: lat={}, lon={}", latitude, longitude);
-        HourlyWeatherResponse response = weatherService.getHourlyForecast(latitude, longitude);
-        return ResponseEntity.ok(response);
+        Instant requestedAt = Instant.now();
+        return weatherService.getHourlyForecast(latitude, longitude)
+                .thenApply(response -> {
+                    chargeCacheMiss(rateLimitCharge, CacheConfig.HOURLY_FORECAST_CACHE, latitude, longitude, response, requestedAt);
+                    return respond(CacheConfig.HOURLY_FORECAST_CACHE, latitude, longitude, response, acceptEncoding, ifNoneMatch);
+                });
     }
 
     @Operation(
@@ -147,7 +195,7 @@ public class WeatherController {
             )
     })
     @GetMapping("/daily")
-    public ResponseEntity<DailyWeatherResponse> getDailyForecast(
+    public CompletableFuture<ResponseEntity<?>> getDailyForecast(
             @Parameter(description = "Latitude coordinate (-90 to 90)", example = "40.7128")
             @RequestParam
             @NotNull(message = "Latitude is required")
@@ -160,10 +208,170 @@ public class WeatherController {
             @NotNull(message = "Longitude is required")
             @DecimalMin(value = "-180.0", message = "Longitude must be at least -180")
             @DecimalMax(value = "180.0", message = "Longitude must be at most 180")
-            BigDecimal longitude
+            BigDecimal longitude,
+
+            @Parameter(hidden = true)
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+            String acceptEncoding,
+
+            @Parameter(hidden = true)
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+            String ifNoneMatch,
+
+            @Parameter(hidden = true)
+            @RequestAttribute(name = RateLimitCharge.ATTRIBUTE, required = false)
+            RateLimitCharge rateLimitCharge
     ) {
-        log.info("Received request for daily forecast: lat={}, lon={}", latitude, longitude);
-        DailyWeatherResponse response = weatherService.getDailyForecast(latitude, longitude);
-        return ResponseEntity.ok(response);
+        Instant requestedAt = Instant.now();
+        return weatherService.getDailyForecast(latitude, longitude)
+                .thenApply(response -> {
+                    chargeCacheMiss(rateLimitCharge, CacheConfig.DAILY_FORECAST_CACHE, latitude, longitude, response, requestedAt);
+                    return respond(CacheConfig.DAILY_FORECAST_CACHE, latitude, longitude, response, acceptEncoding, ifNoneMatch);
+                });
+    }
+
+    @Operation(
+            summary = "Get weather for many locations",
+            description = "Retrieves the requested views for up to 500 locations in one call. " +
+                         "Locations in the same grid cell are fetched once, and results are " +
+                         "streamed back per location as newline-delimited JSON."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "One result per requested location, in completion order",
+                    content = @Content(schema = @Schema(implementation = BatchWeatherResult.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid batch request"
+            ),
+            @ApiResponse(
+                    responseCode = "429",
+                    description = "Rate limit exceeded"
+            )
+    })
+    @PostMapping(
+            value = "/batch",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE}
+    )
+    public Flux<BatchWeatherResult> getBatchWeather(
+            @Valid @RequestBody BatchWeatherRequest request,
+
+            @Parameter(hidden = true)
+            @RequestAttribute(name = RateLimitCharge.ATTRIBUTE, required = false)
+            RateLimitCharge rateLimitCharge
+    ) {
+        if (rateLimitCharge == null) {
+            return weatherBatchService.getBatch(request.getLocations(), request.getViews());
+        }
+
+        rateLimitCharge.requireBatch(weatherBatchService.cellViews(request.getLocations(), request.getViews()));
+        Instant requestedAt = Instant.now();
+        return Flux.defer(() -> {
+            Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            return weatherBatchService.getBatch(request.getLocations(), request.getViews())
+                    .doOnNext(result -> {
+                        chargeBatchCacheMiss(rateLimitCharge, seen, CacheConfig.CURRENT_WEATHER_CACHE,
+                                result, result.getCurrent(), requestedAt);
+                        chargeBatchCacheMiss(rateLimitCharge, seen, CacheConfig.HOURLY_FORECAST_CACHE,
+                                result, result.getHourly(), requestedAt);
+                        chargeBatchCacheMiss(rateLimitCharge, seen, CacheConfig.DAILY_FORECAST_CACHE,
+                                result, result.getDaily(), requestedAt);
+                    });
+        });
+    }
+
+    /**
+     * Charges the extra cost of an upstream fetch when the view was fetched for this request
+     * rather than served from cache.
+     */
+    private void chargeCacheMiss(RateLimitCharge rateLimitCharge, String cacheName, BigDecimal latitude,
+                                 BigDecimal longitude, Object view, Instant requestedAt) {
+        if (rateLimitCharge != null
+                && encodedResponseCache.fetchedSince(cacheName, latitude, longitude, view, requestedAt)) {
+            rateLimitCharge.chargeCacheMiss();
+        }
+    }
+
+    /**
+     * Charges a fetched batch view once per grid cell; results for locations in the same cell
+     * carry the same view instances.
+     */
+    private void chargeBatchCacheMiss(RateLimitCharge rateLimitCharge, Set<Object> seen, String cacheName,
+                                      BatchWeatherResult result, Object view, Instant requestedAt) {
+        if (view != null && seen.add(view)) {
+            chargeCacheMiss(rateLimitCharge, cacheName, result.getLatitude(), result.getLongitude(), view, requestedAt);
+        }
+    }
+
+    /**
+     * Writes a cached response with its strong ETag and a max-age of the entry's remaining TTL.
+     * A matching {@code If-None-Match} yields a 304 without touching the body; otherwise the
+     * pre-encoded JSON is written, gzip-compressed when the client accepts it.
+     */
+    private ResponseEntity<?> respond(String cacheName, BigDecimal latitude, BigDecimal longitude, Object body,
+                                      String acceptEncoding, String ifNoneMatch) {
+        EncodedResponseCache.Representation representation =
+                encodedResponseCache.representation(cacheName, latitude, longitude, body);
+        boolean gzip = encodedResponseCache.isEnabled() && acceptsGzip(acceptEncoding);
+        String etag = representation.etag(gzip);
+        CacheControl cacheControl = CacheControl
+                .maxAge(encodedResponseCache.maxAgeSeconds(representation), TimeUnit.SECONDS)
+                .cachePublic();
+
+        if (matchesEtag(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl);
+
+        if (!encodedResponseCache.isEnabled()) {
+            return response.body(body);
+        }
+
+        response.contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(encodedResponseCache.gzip(body, representation));
+        }
+        return response.body(encodedResponseCache.identity(body, representation));
+    }
+
+    private boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].replace(" ", "").equalsIgnoreCase("q=0");
+            }
+        }
+        return false;
     }
 }
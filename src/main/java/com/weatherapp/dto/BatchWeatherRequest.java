@@ -0,0 +1,46 @@
+package com.weatherapp.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchWeatherRequest {
+
+    @NotEmpty(message = "At least one location is required")
+    @Size(max = 500, message = "At most 500 locations are allowed per batch")
+    private List<@Valid @NotNull Location> locations;
+
+    private Set<WeatherView> views;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Location {
+
+        @NotNull(message = "Latitude is required")
+        @DecimalMin(value = "-90.0", message = "Latitude must be at least -90")
+        @DecimalMax(value = "90.0", message = "Latitude must be at most 90")
+        private BigDecimal latitude;
+
+        @NotNull(message = "Longitude is required")
+        @DecimalMin(value = "-180.0", message = "Longitude must be at least -180")
+        @DecimalMax(value = "180.0", message = "Longitude must be at most 180")
+        private BigDecimal longitude;
+    }
+}
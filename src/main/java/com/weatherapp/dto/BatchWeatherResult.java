@@ -0,0 +1,24 @@
+package com.weatherapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchWeatherResult {
+
+    private BigDecimal latitude;
+    private BigDecimal longitude;
+    private CurrentWeatherResponse current;
+    private HourlyWeatherResponse hourly;
+    private DailyWeatherResponse daily;
+    private String error;
+}
@@ -0,0 +1,307 @@
+package com.weatherapp.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.weatherapp.dto.DailyWeatherResponse.DailyForecast;
+import com.weatherapp.dto.DailyWeatherResponse.FeelsLike;
+import com.weatherapp.dto.DailyWeatherResponse.Temperature;
+import com.weatherapp.dto.DailyWeatherResponse.WeatherCondition;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import static com.weatherapp.dto.ForecastColumns.NO_CONDITION;
+import static com.weatherapp.dto.ForecastColumns.decimal;
+import static com.weatherapp.dto.ForecastColumns.putDecimal;
+import static com.weatherapp.dto.ForecastColumns.putSmall;
+import static com.weatherapp.dto.ForecastColumns.putTime;
+import static com.weatherapp.dto.ForecastColumns.small;
+import static com.weatherapp.dto.ForecastColumns.time;
+import static com.weatherapp.dto.ForecastColumns.timeBase;
+import static com.weatherapp.dto.ForecastColumns.writeCondition;
+import static com.weatherapp.dto.ForecastColumns.writeDecimal;
+import static com.weatherapp.dto.ForecastColumns.writeSmall;
+import static com.weatherapp.dto.ForecastColumns.writeTime;
+import static com.weatherapp.dto.ForecastColumns.defaultLayout;
+
+/**
+ * Read-only daily forecast list stored as one primitive array per field, including the fields of
+ * the nested temperature objects, whose absence is tracked in a bitmask per object. Like
+ * {@link CompactHourlyForecasts} it is serialized from the columns and only {@link #get} builds
+ * an element.
+ */
+@JsonSerialize(using = CompactDailyForecasts.Serializer.class)
+public final class CompactDailyForecasts extends AbstractList<DailyForecast> implements RandomAccess {
+
+    private static final int MAX_SIZE = Long.SIZE;
+
+    private final int size;
+    private final long timeBase;
+    private final WeatherConditionTable conditions;
+    private final int hashCode;
+    private final int[] forecastDate;
+    private long temperatureAbsent;
+    private final int[] temperatureMorning;
+    private final int[] temperatureDay;
+    private final int[] temperatureEvening;
+    private final int[] temperatureNight;
+    private final int[] temperatureMin;
+    private final int[] temperatureMax;
+    private long feelsLikeAbsent;
+    private final int[] feelsLikeMorning;
+    private final int[] feelsLikeDay;
+    private final int[] feelsLikeEvening;
+    private final int[] feelsLikeNight;
+    private final short[] pressure;
+    private final short[] humidity;
+    private final int[] dewPoint;
+    private final int[] windSpeed;
+    private final short[] windDeg;
+    private final int[] windGust;
+    private final short[] clouds;
+    private final int[] probabilityOfPrecipitation;
+    private final int[] rain;
+    private final int[] snow;
+    private final short[] weather;
+
+    private CompactDailyForecasts(int size, long timeBase, WeatherConditionTable conditions, int hashCode) {
+        this.size = size;
+        this.timeBase = timeBase;
+        this.conditions = conditions;
+        this.hashCode = hashCode;
+        this.forecastDate = new int[size];
+        this.temperatureMorning = new int[size];
+        this.temperatureDay = new int[size];
+        this.temperatureEvening = new int[size];
+        this.temperatureNight = new int[size];
+        this.temperatureMin = new int[size];
+        this.temperatureMax = new int[size];
+        this.feelsLikeMorning = new int[size];
+        this.feelsLikeDay = new int[size];
+        this.feelsLikeEvening = new int[size];
+        this.feelsLikeNight = new int[size];
+        this.pressure = new short[size];
+        this.humidity = new short[size];
+        this.dewPoint = new int[size];
+        this.windSpeed = new int[size];
+        this.windDeg = new short[size];
+        this.windGust = new int[size];
+        this.clouds = new short[size];
+        this.probabilityOfPrecipitation = new int[size];
+        this.rain = new int[size];
+        this.snow = new int[size];
+        this.weather = new short[size];
+    }
+
+    /**
+     * Returns a compact copy of {@code forecasts} with its conditions interned in {@code conditions},
+     * or {@code forecasts} itself if it is already compact, longer than {@value #MAX_SIZE} days,
+     * holds a value the columns cannot represent exactly or a condition that no longer fits in the
+     * table.
+     */
+    public static List<DailyForecast> of(List<DailyForecast> forecasts, WeatherConditionTable conditions) {
+        if (forecasts == null || forecasts.isEmpty() || forecasts.size() > MAX_SIZE
+                || forecasts instanceof CompactDailyForecasts) {
+            return forecasts;
+        }
+        DailyForecast first = forecasts.get(0);
+        CompactDailyForecasts compact = new CompactDailyForecasts(forecasts.size(),
+                timeBase(first != null ? first.getForecastDate() : null), conditions, forecasts.hashCode());
+        int row = 0;
+        for (DailyForecast forecast : forecasts) {
+            if (forecast == null || !compact.put(row++, forecast)) {
+                return forecasts;
+            }
+        }
+        return compact;
+    }
+
+    private boolean put(int row, DailyForecast forecast) {
+        if (!putTime(forecastDate, row, timeBase, forecast.getForecastDate())
+                || !putTemperature(row, forecast.getTemperature())
+                || !putFeelsLike(row, forecast.getFeelsLike())
+                || !putSmall(pressure, row, forecast.getPressure())
+                || !putSmall(humidity, row, forecast.getHumidity())
+                || !putDecimal(dewPoint, row, forecast.getDewPoint())
+                || !putDecimal(windSpeed, row, forecast.getWindSpeed())
+                || !putSmall(windDeg, row, forecast.getWindDeg())
+                || !putDecimal(windGust, row, forecast.getWindGust())
+                || !putSmall(clouds, row, forecast.getClouds())
+                || !putDecimal(probabilityOfPrecipitation, row, forecast.getProbabilityOfPrecipitation())
+                || !putDecimal(rain, row, forecast.getRain())
+                || !putDecimal(snow, row, forecast.getSnow())) {
+            return false;
+        }
+        WeatherCondition condition = forecast.getWeather();
+        if (condition == null) {
+            weather[row] = NO_CONDITION;
+            return true;
+        }
+        weather[row] = conditions.code(condition.getMain(), condition.getDescription(), condition.getIcon());
+        return weather[row] != NO_CONDITION;
+    }
+
+    private boolean putTemperature(int row, Temperature temperature) {
+        if (temperature == null) {
+            temperatureAbsent |= 1L << row;
+            return true;
+        }
+        return putDecimal(temperatureMorning, row, temperature.getMorning())
+                && putDecimal(temperatureDay, row, temperature.getDay())
+                && putDecimal(temperatureEvening, row, temperature.getEvening())
+                && putDecimal(temperatureNight, row, temperature.getNight())
+                && putDecimal(temperatureMin, row, temperature.getMin())
+                && putDecimal(temperatureMax, row, temperature.getMax());
+    }
+
+    private boolean putFeelsLike(int row, FeelsLike feelsLike) {
+        if (feelsLike == null) {
+            feelsLikeAbsent |= 1L << row;
+            return true;
+        }
+        return putDecimal(feelsLikeMorning, row, feelsLike.getMorning())
+                && putDecimal(feelsLikeDay, row, feelsLike.getDay())
+                && putDecimal(feelsLikeEvening, row, feelsLike.getEvening())
+                && putDecimal(feelsLikeNight, row, feelsLike.getNight());
+    }
+
+    @Override
+    public DailyForecast get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return DailyForecast.builder()
+                .forecastDate(time(forecastDate, index, timeBase))
+                .temperature(temperature(index))
+                .feelsLike(feelsLike(index))
+                .pressure(small(pressure, index))
+                .humidity(small(humidity, index))
+                .dewPoint(decimal(dewPoint, index))
+                .windSpeed(decimal(windSpeed, index))
+                .windDeg(small(windDeg, index))
+                .windGust(decimal(windGust, index))
+                .clouds(small(clouds, index))
+                .probabilityOfPrecipitation(decimal(probabilityOfPrecipitation, index))
+                .rain(decimal(rain, index))
+                .snow(decimal(snow, index))
+                .weather(weather(index))
+                .build();
+    }
+
+    private Temperature temperature(int index) {
+        if ((temperatureAbsent & 1L << index) != 0) {
+            return null;
+        }
+        return Temperature.builder()
+                .morning(decimal(temperatureMorning, index))
+                .day(decimal(temperatureDay, index))
+                .evening(decimal(temperatureEvening, index))
+                .night(decimal(temperatureNight, index))
+                .min(decimal(temperatureMin, index))
+                .max(decimal(temperatureMax, index))
+                .build();
+    }
+
+    private FeelsLike feelsLike(int index) {
+        if ((feelsLikeAbsent & 1L << index) != 0) {
+            return null;
+        }
+        return FeelsLike.builder()
+                .morning(decimal(feelsLikeMorning, index))
+                .day(decimal(feelsLikeDay, index))
+                .evening(decimal(feelsLikeEvening, index))
+                .night(decimal(feelsLikeNight, index))
+                .build();
+    }
+
+    private WeatherCondition weather(int index) {
+        short code = weather[index];
+        if (code == NO_CONDITION) {
+            return null;
+        }
+        String[] condition = conditions.condition(code);
+        return new WeatherCondition(condition[0], condition[1], condition[2]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Equal to the hash code of the list it was built from, which holds equal elements.
+     */
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    /**
+     * Writes a row with the fields in the order Jackson writes a {@link DailyForecast}: those
+     * keeping their Java name first, then the renamed ones.
+     */
+    private void writeRow(JsonGenerator gen, SerializerProvider provider, int row) throws IOException {
+        gen.writeStartObject();
+        if ((temperatureAbsent & 1L << row) != 0) {
+            gen.writeNullField("temperature");
+        } else {
+            gen.writeObjectFieldStart("temperature");
+            writeDecimal(gen, "morning", temperatureMorning, row);
+            writeDecimal(gen, "day", temperatureDay, row);
+            writeDecimal(gen, "evening", temperatureEvening, row);
+            writeDecimal(gen, "night", temperatureNight, row);
+            writeDecimal(gen, "min", temperatureMin, row);
+            writeDecimal(gen, "max", temperatureMax, row);
+            gen.writeEndObject();
+        }
+        writeSmall(gen, "pressure", pressure, row);
+        writeSmall(gen, "humidity", humidity, row);
+        writeSmall(gen, "clouds", clouds, row);
+        writeDecimal(gen, "rain", rain, row);
+        writeDecimal(gen, "snow", snow, row);
+        writeCondition(gen, "weather", conditions, weather[row]);
+        writeTime(gen, provider, "forecast_date", forecastDate, row, timeBase);
+        if ((feelsLikeAbsent & 1L << row) != 0) {
+            gen.writeNullField("feels_like");
+        } else {
+            gen.writeObjectFieldStart("feels_like");
+            writeDecimal(gen, "morning", feelsLikeMorning, row);
+            writeDecimal(gen, "day", feelsLikeDay, row);
+            writeDecimal(gen, "evening", feelsLikeEvening, row);
+            writeDecimal(gen, "night", feelsLikeNight, row);
+            gen.writeEndObject();
+        }
+        writeDecimal(gen, "dew_point", dewPoint, row);
+        writeDecimal(gen, "wind_speed", windSpeed, row);
+        writeSmall(gen, "wind_deg", windDeg, row);
+        writeDecimal(gen, "wind_gust", windGust, row);
+        writeDecimal(gen, "pop", probabilityOfPrecipitation, row);
+        gen.writeEndObject();
+    }
+
+    static final class Serializer extends StdSerializer<CompactDailyForecasts> {
+
+        Serializer() {
+            super(CompactDailyForecasts.class);
+        }
+
+        @Override
+        public void serialize(CompactDailyForecasts forecasts, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            boolean columns = defaultLayout(provider);
+            gen.writeStartArray(forecasts, forecasts.size);
+            for (int row = 0; row < forecasts.size; row++) {
+                if (columns) {
+                    forecasts.writeRow(gen, provider, row);
+                } else {
+                    provider.defaultSerializeValue(forecasts.get(row), gen);
+                }
+            }
+            gen.writeEndArray();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.weatherapp.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.weatherapp.dto.HourlyWeatherResponse.HourlyForecast;
+import com.weatherapp.dto.HourlyWeatherResponse.WeatherCondition;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import static com.weatherapp.dto.ForecastColumns.NO_CONDITION;
+import static com.weatherapp.dto.ForecastColumns.decimal;
+import static com.weatherapp.dto.ForecastColumns.putDecimal;
+import static com.weatherapp.dto.ForecastColumns.putSmall;
+import static com.weatherapp.dto.ForecastColumns.putTime;
+import static com.weatherapp.dto.ForecastColumns.small;
+import static com.weatherapp.dto.ForecastColumns.time;
+import static com.weatherapp.dto.ForecastColumns.timeBase;
+import static com.weatherapp.dto.ForecastColumns.writeCondition;
+import static com.weatherapp.dto.ForecastColumns.writeDecimal;
+import static com.weatherapp.dto.ForecastColumns.writeSmall;
+import static com.weatherapp.dto.ForecastColumns.writeTime;
+import static com.weatherapp.dto.ForecastColumns.defaultLayout;
+
+/**
+ * Read-only hourly forecast list stored as one primitive array per field. Cached responses hold no
+ * forecast objects: the serializer writes rows straight from the columns, the hash code is taken
+ * from the source list, and only {@link #get} builds an element.
+ */
+@JsonSerialize(using = CompactHourlyForecasts.Serializer.class)
+public final class CompactHourlyForecasts extends AbstractList<HourlyForecast> implements RandomAccess {
+
+    private final int size;
+    private final long timeBase;
+    private final WeatherConditionTable conditions;
+    private final int hashCode;
+    private final int[] forecastTime;
+    private final int[] temperature;
+    private final int[] feelsLike;
+    private final short[] pressure;
+    private final short[] humidity;
+    private final int[] dewPoint;
+    private final short[] clouds;
+    private final int[] visibility;
+    private final int[] windSpeed;
+    private final short[] windDeg;
+    private final int[] windGust;
+    private final short[] weather;
+    private final int[] probabilityOfPrecipitation;
+    private final int[] rain1h;
+    private final int[] snow1h;
+
+    private CompactHourlyForecasts(int size, long timeBase, WeatherConditionTable conditions, int hashCode) {
+        this.size = size;
+        this.timeBase = timeBase;
+        this.conditions = conditions;
+        this.hashCode = hashCode;
+        this.forecastTime = new int[size];
+        this.temperature = new int[size];
+        this.feelsLike = new int[size];
+        this.pressure = new short[size];
+        this.humidity = new short[size];
+        this.dewPoint = new int[size];
+        this.clouds = new short[size];
+        this.visibility = new int[size];
+        this.windSpeed = new int[size];
+        this.windDeg = new short[size];
+        this.windGust = new int[size];
+        this.weather = new short[size];
+        this.probabilityOfPrecipitation = new int[size];
+        this.rain1h = new int[size];
+        this.snow1h = new int[size];
+    }
+
+    /**
+     * Returns a compact copy of {@code forecasts} with its conditions interned in {@code conditions},
+     * or {@code forecasts} itself if it is already compact, holds a value the columns cannot
+     * represent exactly or a condition that no longer fits in the table.
+     */
+    public static List<HourlyForecast> of(List<HourlyForecast> forecasts, WeatherConditionTable conditions) {
+        if (forecasts == null || forecasts.isEmpty() || forecasts instanceof CompactHourlyForecasts) {
+            return forecasts;
+        }
+        HourlyForecast first = forecasts.get(0);
+        CompactHourlyForecasts compact = new CompactHourlyForecasts(forecasts.size(),
+                timeBase(first != null ? first.getForecastTime() : null), conditions, forecasts.hashCode());
+        int row = 0;
+        for (HourlyForecast forecast : forecasts) {
+            if (forecast == null || !compact.put(row++, forecast)) {
+                return forecasts;
+            }
+        }
+        return compact;
+    }
+
+    private boolean put(int row, HourlyForecast forecast) {
+        if (!putTime(forecastTime, row, timeBase, forecast.getForecastTime())
+                || !putDecimal(temperature, row, forecast.getTemperature())
+                || !putDecimal(feelsLike, row, forecast.getFeelsLike())
+                || !putSmall(pressure, row, forecast.getPressure())
+                || !putSmall(humidity, row, forecast.getHumidity())
+                || !putDecimal(dewPoint, row, forecast.getDewPoint())
+                || !putSmall(clouds, row, forecast.getClouds())
+                || !putDecimal(visibility, row, forecast.getVisibility())
+                || !putDecimal(windSpeed, row, forecast.getWindSpeed())
+                || !putSmall(windDeg, row, forecast.getWindDeg())
+                || !putDecimal(windGust, row, forecast.getWindGust())
+                || !putDecimal(probabilityOfPrecipitation, row, forecast.getProbabilityOfPrecipitation())
+                || !putDecimal(rain1h, row, forecast.getRain1h())
+                || !putDecimal(snow1h, row, forecast.getSnow1h())) {
+            return false;
+        }
+        WeatherCondition condition = forecast.getWeather();
+        if (condition == null) {
+            weather[row] = NO_CONDITION;
+            return true;
+        }
+        weather[row] = conditions.code(condition.getMain(), condition.getDescription(), condition.getIcon());
+        return weather[row] != NO_CONDITION;
+    }
+
+    @Override
+    public HourlyForecast get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return HourlyForecast.builder()
+                .forecastTime(time(forecastTime, index, timeBase))
+                .temperature(decimal(temperature, index))
+                .feelsLike(decimal(feelsLike, index))
+                .pressure(small(pressure, index))
+                .humidity(small(humidity, index))
+                .dewPoint(decimal(dewPoint, index))
+                .clouds(small(clouds, index))
+                .visibility(decimal(visibility, index))
+                .windSpeed(decimal(windSpeed, index))
+                .windDeg(small(windDeg, index))
+                .windGust(decimal(windGust, index))
+                .weather(weather(index))
+                .probabilityOfPrecipitation(decimal(probabilityOfPrecipitation, index))
+                .rain1h(decimal(rain1h, index))
+                .snow1h(decimal(snow1h, index))
+                .build();
+    }
+
+    private WeatherCondition weather(int index) {
+        short code = weather[index];
+        if (code == NO_CONDITION) {
+            return null;
+        }
+        String[] condition = conditions.condition(code);
+        return new WeatherCondition(condition[0], condition[1], condition[2]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Equal to the hash code of the list it was built from, which holds equal elements.
+     */
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    /**
+     * Writes a row with the fields in the order Jackson writes a {@link HourlyForecast}: those
+     * keeping their Java name first, then the renamed ones.
+     */
+    private void writeRow(JsonGenerator gen, SerializerProvider provider, int row) throws IOException {
+        gen.writeStartObject();
+        writeDecimal(gen, "temperature", temperature, row);
+        writeSmall(gen, "pressure", pressure, row);
+        writeSmall(gen, "humidity", humidity, row);
+        writeSmall(gen, "clouds", clouds, row);
+        writeDecimal(gen, "visibility", visibility, row);
+        writeCondition(gen, "weather", conditions, weather[row]);
+        writeTime(gen, provider, "forecast_time", forecastTime, row, timeBase);
+        writeDecimal(gen, "feels_like", feelsLike, row);
+        writeDecimal(gen, "dew_point", dewPoint, row);
+        writeDecimal(gen, "wind_speed", windSpeed, row);
+        writeSmall(gen, "wind_deg", windDeg, row);
+        writeDecimal(gen, "wind_gust", windGust, row);
+        writeDecimal(gen, "pop", probabilityOfPrecipitation, row);
+        writeDecimal(gen, "rain_1h", rain1h, row);
+        writeDecimal(gen, "snow_1h", snow1h, row);
+        gen.writeEndObject();
+    }
+
+    static final class Serializer extends StdSerializer<CompactHourlyForecasts> {
+
+        Serializer() {
+            super(CompactHourlyForecasts.class);
+        }
+
+        @Override
+        public void serialize(CompactHourlyForecasts forecasts, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            boolean columns = defaultLayout(provider);
+            gen.writeStartArray(forecasts, forecasts.size);
+            for (int row = 0; row < forecasts.size; row++) {
+                if (columns) {
+                    forecasts.writeRow(gen, provider, row);
+                } else {
+                    provider.defaultSerializeValue(forecasts.get(row), gen);
+                }
+            }
+            gen.writeEndArray();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.weatherapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Encodings shared by the columnar forecast lists. Decimals are stored as fixed-point hundredths
+ * in an {@code int}, which round-trips every value the upstream sends (at most two decimals)
+ * to the identical {@code double}; small integers are stored as {@code short}. Each column
+ * reserves its minimum value for {@code null}. Weather conditions are stored as a {@code short}
+ * code from a {@link WeatherConditionTable}.
+ */
+final class ForecastColumns {
+
+    static final int NULL_DECIMAL = Integer.MIN_VALUE;
+    static final short NULL_SMALL = Short.MIN_VALUE;
+    static final int NULL_TIME = Integer.MIN_VALUE;
+    static final short NO_CONDITION = -1;
+
+    private ForecastColumns() {
+    }
+
+    /**
+     * Stores {@code value} in {@code column[row]}; returns {@code false} if it has more than two
+     * decimals or is out of range, in which case the column cannot represent it exactly.
+     */
+    static boolean putDecimal(int[] column, int row, Double value) {
+        if (value == null) {
+            column[row] = NULL_DECIMAL;
+            return true;
+        }
+        long scaled = Math.round(value * 100);
+        if (scaled <= NULL_DECIMAL || scaled > Integer.MAX_VALUE
+                || Double.doubleToLongBits(scaled / 100.0) != Double.doubleToLongBits(value)) {
+            return false;
+        }
+        column[row] = (int) scaled;
+        return true;
+    }
+
+    static Double decimal(int[] column, int row) {
+        int scaled = column[row];
+        return scaled == NULL_DECIMAL ? null : scaled / 100.0;
+    }
+
+    static boolean putSmall(short[] column, int row, Integer value) {
+        if (value == null) {
+            column[row] = NULL_SMALL;
+            return true;
+        }
+        if (value <= NULL_SMALL || value > Short.MAX_VALUE) {
+            return false;
+        }
+        column[row] = value.shortValue();
+        return true;
+    }
+
+    static Integer small(short[] column, int row) {
+        short value = column[row];
+        return value == NULL_SMALL ? null : (int) value;
+    }
+
+    /**
+     * Stores {@code time} as whole seconds after {@code base}, both read as UTC wall-clock time.
+     */
+    static boolean putTime(int[] column, int row, long base, LocalDateTime time) {
+        if (time == null) {
+            column[row] = NULL_TIME;
+            return true;
+        }
+        long offset = time.toEpochSecond(ZoneOffset.UTC) - base;
+        if (time.getNano() != 0 || offset <= NULL_TIME || offset > Integer.MAX_VALUE) {
+            return false;
+        }
+        column[row] = (int) offset;
+        return true;
+    }
+
+    static LocalDateTime time(int[] column, int row, long base) {
+        int offset = column[row];
+        return offset == NULL_TIME ? null : LocalDateTime.ofEpochSecond(base + offset, 0, ZoneOffset.UTC);
+    }
+
+    static long timeBase(LocalDateTime first) {
+        return first != null ? first.toEpochSecond(ZoneOffset.UTC) : 0;
+    }
+
+    /**
+     * Whether rows can be written straight from the columns, producing what the element
+     * serializers would: only while the mapper writes null fields and uses its default property
+     * names and order. Otherwise the lists serialize their elements.
+     */
+    static boolean defaultLayout(SerializerProvider provider) {
+        SerializationConfig config = provider.getConfig();
+        JsonInclude.Include inclusion = config.getDefaultPropertyInclusion().getValueInclusion();
+        return (inclusion == JsonInclude.Include.ALWAYS || inclusion == JsonInclude.Include.USE_DEFAULTS)
+                && config.getPropertyNamingStrategy() == null
+                && !config.isEnabled(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY);
+    }
+
+    static void writeDecimal(JsonGenerator gen, String name, int[] column, int row) throws IOException {
+        int scaled = column[row];
+        if (scaled == NULL_DECIMAL) {
+            gen.writeNullField(name);
+        } else {
+            gen.writeNumberField(name, scaled / 100.0);
+        }
+    }
+
+    static void writeSmall(JsonGenerator gen, String name, short[] column, int row) throws IOException {
+        short value = column[row];
+        if (value == NULL_SMALL) {
+            gen.writeNullField(name);
+        } else {
+            gen.writeNumberField(name, (int) value);
+        }
+    }
+
+    /**
+     * Writes a time through the mapper's own serializer, so date settings apply as usual.
+     */
+    static void writeTime(JsonGenerator gen, SerializerProvider provider, String name, int[] column, int row,
+                          long base) throws IOException {
+        provider.defaultSerializeField(name, time(column, row, base), gen);
+    }
+
+    static void writeCondition(JsonGenerator gen, String name, WeatherConditionTable conditions, short code)
+            throws IOException {
+        if (code == NO_CONDITION) {
+            gen.writeNullField(name);
+            return;
+        }
+        String[] condition = conditions.condition(code);
+        gen.writeObjectFieldStart(name);
+        gen.writeStringField("main", condition[0]);
+        gen.writeStringField("description", condition[1]);
+        gen.writeStringField("icon", condition[2]);
+        gen.writeEndObject();
+    }
+}
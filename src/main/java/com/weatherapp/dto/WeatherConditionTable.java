@@ -0,0 +1,67 @@
+package com.weatherapp.dto;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Interns {@code (main, description, icon)} weather conditions as {@code short} codes for the
+ * columnar forecast lists. A table holds at most {@code capacity} conditions and never forgets
+ * one; each list keeps a reference to the table that encoded it, so a full table can be replaced
+ * by a fresh one and is freed once the last of its lists is evicted.
+ */
+public final class WeatherConditionTable {
+
+    private final int capacity;
+    private final Map<List<String>, Short> codes = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<String[]> conditions;
+
+    public WeatherConditionTable(int capacity) {
+        if (capacity <= 0 || capacity > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Condition table capacity must be between 1 and " + Short.MAX_VALUE);
+        }
+        this.capacity = capacity;
+        this.conditions = new AtomicReferenceArray<>(capacity);
+    }
+
+    public boolean isFull() {
+        return codes.size() >= capacity;
+    }
+
+    public int size() {
+        return codes.size();
+    }
+
+    /**
+     * Code for a condition, or {@link ForecastColumns#NO_CONDITION} once the table is full.
+     */
+    short code(String main, String description, String icon) {
+        List<String> key = Arrays.asList(main, description, icon);
+        Short code = codes.get(key);
+        if (code != null) {
+            return code;
+        }
+        synchronized (codes) {
+            code = codes.get(key);
+            if (code != null) {
+                return code;
+            }
+            int next = codes.size();
+            if (next >= capacity) {
+                return ForecastColumns.NO_CONDITION;
+            }
+            conditions.set(next, new String[]{main, description, icon});
+            codes.put(key, (short) next);
+            return (short) next;
+        }
+    }
+
+    /**
+     * The {@code [main, description, icon]} triple for a code from {@link #code}.
+     */
+    String[] condition(short code) {
+        return conditions.get(code);
+    }
+}
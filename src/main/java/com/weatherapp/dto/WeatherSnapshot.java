@@ -0,0 +1,26 @@
+package com.weatherapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * All views derived from a single OpenWeather {@code /onecall} response for one location.
+ * A view is {@code null} when the upstream payload did not contain that section.
+ * {@code upstreamTimestamp} is the {@code current.dt} of the payload in epoch seconds.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WeatherSnapshot {
+
+    private CurrentWeatherResponse current;
+    private HourlyWeatherResponse hourly;
+    private DailyWeatherResponse daily;
+    private Long upstreamTimestamp;
+    private Instant fetchedAt;
+}
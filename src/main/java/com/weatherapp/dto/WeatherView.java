@@ -0,0 +1,14 @@
+package com.weatherapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public enum WeatherView {
+    @JsonProperty("current")
+    CURRENT,
+
+    @JsonProperty("hourly")
+    HOURLY,
+
+    @JsonProperty("daily")
+    DAILY
+}
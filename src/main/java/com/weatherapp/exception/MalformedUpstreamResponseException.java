@@ -0,0 +1,14 @@
+package com.weatherapp.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Raised when an upstream response arrived but could not be decoded. Asking again would most
+ * likely get the same payload, so it is not treated as overload and not retried.
+ */
+public class MalformedUpstreamResponseException extends ExternalApiException {
+
+    public MalformedUpstreamResponseException(String message, Throwable cause) {
+        super(message, HttpStatus.BAD_GATEWAY.value(), cause);
+    }
+}
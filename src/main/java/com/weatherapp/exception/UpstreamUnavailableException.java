@@ -0,0 +1,14 @@
+package com.weatherapp.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Raised without calling the upstream when the circuit breaker is open or the adaptive
+ * concurrency limit is reached.
+ */
+public class UpstreamUnavailableException extends ExternalApiException {
+
+    public UpstreamUnavailableException(String message) {
+        super(message, HttpStatus.SERVICE_UNAVAILABLE.value());
+    }
+}
@@ -1,9 +1,15 @@
 package com.weatherapp.interceptor;
 
-import com.weatherapp.exception.RateLimitExceededException;
-import io.github.bucket4j.Bucket;
-import io.github.bucket4j.BucketConfiguration;
-import io.github.bucket4j.ConsumptionProbe;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.weatherapp.ratelimit.RateLimitBucket;
+import com.weatherapp.ratelimit.RateLimitBucketFactory;
+import com.weatherapp.ratelimit.RateLimitCharge;
+import com.weatherapp.ratelimit.RateLimitPlan;
+import com.weatherapp.ratelimit.RateLimitPlanRegistry;
+import com.weatherapp.ratelimit.RateLimitProbe;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -12,53 +18,89 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 
-import java.util.Map;
-import java.util.function.Supplier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class RateLimitInterceptor implements HandlerInterceptor {
 
-    private final Map<String, Bucket> rateLimitBuckets;
-    private final Supplier<BucketConfiguration> bucketConfiguration;
+    private final Cache<String, RateLimitBucket> rateLimitBuckets;
+    private final RateLimitBucketFactory rateLimitBucketFactory;
+    private final RateLimitPlanRegistry planRegistry;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, ConcurrentMap<String, Counter>> decisionCounters = new ConcurrentHashMap<>();
 
     @Value("${weather.rate-limit.enabled}")
     private boolean rateLimitEnabled;
 
+    @Value("${weather.rate-limit.costs.request}")
+    private long requestCost;
+
+    @Value("${weather.rate-limit.costs.cache-miss}")
+    private long cacheMissCost;
+
+    @Value("${weather.rate-limit.costs.batch-location}")
+    private long batchLocationCost;
+
     @Override
     public boolean preHandle(HttpServletRequest request, 
                             HttpServletResponse response, 
                             Object handler) {
-        if (!rateLimitEnabled) {
+        if (!rateLimitEnabled || request.getDispatcherType() == DispatcherType.ASYNC) {
             return true;
         }
 
+        String apiKey = request.getHeader("X-API-Key");
+        RateLimitPlan plan = planRegistry.planFor(apiKey);
         String clientId = getClientIdentifier(request);
         
-        Bucket bucket = rateLimitBuckets.computeIfAbsent(clientId, 
-            key -> Bucket.builder()
-                .addLimit(bucketConfiguration.get().getBandwidths()[0])
-                .build());
+        String bucketKey = clientId + "|" + plan.getSignature();
+        RateLimitBucket bucket = rateLimitBuckets.get(bucketKey, key -> rateLimitBucketFactory.create(key, plan));
 
-        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
+        RateLimitProbe probe;
+        try {
+            probe = bucket.tryConsume(requestCost);
+        } catch (RuntimeException e) {
+            log.warn("Rate limit state unavailable for client: {}, allowing request: {}",
+                    clientId, e.getMessage());
+            count(plan, "unavailable");
+            return true;
+        }
 
-        if (probe.isConsumed()) {
+        if (probe.consumed()) {
+            count(plan, "allowed");
+            response.addHeader("X-Rate-Limit-Plan", plan.getName());
             response.addHeader("X-Rate-Limit-Remaining", 
-                             String.valueOf(probe.getRemainingTokens()));
-            log.debug("Request allowed for client: {} (remaining: {})", 
-                     clientId, probe.getRemainingTokens());
+                             String.valueOf(probe.remainingTokens()));
+            request.setAttribute(RateLimitCharge.ATTRIBUTE,
+                    new RateLimitCharge(bucket, clientId, cacheMissCost, batchLocationCost,
+                            () -> extendExpiry(bucketKey, bucket)));
             return true;
         }
 
-        long waitForRefill = probe.getNanosToWaitForRefill() / 1_000_000_000;
-        log.warn("Rate limit exceeded for client: {} (retry after: {}s)", 
-                clientId, waitForRefill);
-        
-        throw new RateLimitExceededException(
-                "Rate limit exceeded. Please try again later.", 
-                waitForRefill
-        );
+        count(plan, "rejected");
+        throw RateLimitCharge.rejected(clientId, probe);
+    }
+
+    /**
+     * Re-times the bucket's idle expiry after a charge put it into debt, since the expiry computed
+     * when the request read the bucket does not cover it.
+     */
+    private void extendExpiry(String bucketKey, RateLimitBucket bucket) {
+        rateLimitBuckets.policy().expireVariably()
+                .ifPresent(expiry -> expiry.setExpiresAfter(bucketKey, bucket.refillWindow()));
+    }
+
+    private void count(RateLimitPlan plan, String result) {
+        decisionCounters.computeIfAbsent(plan.getName(), name -> new ConcurrentHashMap<>())
+                .computeIfAbsent(result, ignored -> Counter.builder("weather.rate_limit.requests")
+                        .tag("plan", plan.getName())
+                        .tag("result", result)
+                        .description("Rate limit decisions per plan: allowed, rejected, or allowed because the limit state was unavailable")
+                        .register(meterRegistry))
+                .increment();
     }
 
     private String getClientIdentifier(HttpServletRequest request) {
@@ -0,0 +1,133 @@
+package com.weatherapp.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes one JSON access record per API request to the {@code access} logger, which
+ * {@code logback-spring.xml} routes through a non-blocking async appender. Requests are sampled at
+ * {@code weather.access-log.sample-rate}, while server errors and requests slower than
+ * {@code weather.access-log.slow-threshold-ms} are always logged. For async requests the record
+ * is written at the end of the async dispatch, so it covers the full request, and
+ * {@code handler_ms} is the part spent before the handler returned its future.
+ */
+@Component
+@ConditionalOnProperty(name = "weather.access-log.enabled", havingValue = "true", matchIfMissing = true)
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    private static final Logger accessLog = LoggerFactory.getLogger("access");
+    private static final String TIMING_ATTRIBUTE = AccessLogFilter.class.getName() + ".timing";
+
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+
+    public AccessLogFilter(
+            @Value("${weather.access-log.sample-rate}") double sampleRate,
+            @Value("${weather.access-log.slow-threshold-ms}") long slowThresholdMs) {
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RequestTiming timing = (RequestTiming) request.getAttribute(TIMING_ATTRIBUTE);
+        if (timing == null) {
+            timing = new RequestTiming();
+            request.setAttribute(TIMING_ATTRIBUTE, timing);
+        }
+
+        boolean asyncDispatch = isAsyncDispatch(request);
+        if (!asyncDispatch) {
+            RequestTiming.bind(timing);
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (!asyncDispatch) {
+                RequestTiming.unbind();
+            }
+            if (isAsyncStarted(request)) {
+                timing.markHandlerReturned();
+            } else {
+                log(request, response, timing);
+            }
+        }
+    }
+
+    private void log(HttpServletRequest request, HttpServletResponse response, RequestTiming timing) {
+        long totalNanos = System.nanoTime() - timing.startNanos();
+        int status = response.getStatus();
+        if (!accessLog.isInfoEnabled() || !(status >= 500 || totalNanos >= slowThresholdNanos
+                || ThreadLocalRandom.current().nextDouble() < sampleRate)) {
+            return;
+        }
+
+        StringBuilder record = new StringBuilder(256)
+                .append("{\"ts\":\"").append(Instant.now()).append('"')
+                .append(",\"method\":\"").append(request.getMethod()).append('"')
+                .append(",\"path\":");
+        appendString(record, request.getRequestURI());
+        record.append(",\"status\":").append(status)
+                .append(",\"total_ms\":").append(millis(totalNanos));
+        if (timing.handlerNanos() >= 0) {
+            record.append(",\"handler_ms\":").append(millis(timing.handlerNanos()));
+        }
+        record.append(",\"key_us\":").append(TimeUnit.NANOSECONDS.toMicros(timing.keyNanos()))
+                .append(",\"cache_us\":").append(TimeUnit.NANOSECONDS.toMicros(timing.cacheNanos()))
+                .append(",\"cache_hits\":").append(timing.cacheHits())
+                .append(",\"cache_misses\":").append(timing.cacheMisses());
+        if (timing.loadNanos() >= 0) {
+            record.append(",\"load_ms\":").append(millis(timing.loadNanos()))
+                    .append(",\"load_failed\":").append(timing.loadFailed());
+        }
+        String plan = response.getHeader("X-Rate-Limit-Plan");
+        if (plan != null) {
+            record.append(",\"plan\":");
+            appendString(record, plan);
+        }
+        accessLog.info(record.append('}').toString());
+    }
+
+    private static String millis(long nanos) {
+        return String.valueOf(nanos / 10_000 / 100.0);
+    }
+
+    private static void appendString(StringBuilder record, String value) {
+        record.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                record.append('\\').append(c);
+            } else if (c < 0x20) {
+                record.append(String.format("\\u%04x", (int) c));
+            } else {
+                record.append(c);
+            }
+        }
+        record.append('"');
+    }
+}
@@ -0,0 +1,35 @@
+package com.weatherapp.logging;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Timers for the stages of serving a view under {@code weather.request.stage}: cache key
+ * generation, view cache lookup, the upstream fetch including retries and decoding, and mapping
+ * the payload to the views. Registered once here and shared by the layers that record them.
+ */
+@Getter
+@Component
+public class RequestStageTimers {
+
+    private final Timer key;
+    private final Timer cache;
+    private final Timer fetch;
+    private final Timer map;
+
+    public RequestStageTimers(MeterRegistry meterRegistry) {
+        this.key = stageTimer(meterRegistry, "key");
+        this.cache = stageTimer(meterRegistry, "cache");
+        this.fetch = stageTimer(meterRegistry, "fetch");
+        this.map = stageTimer(meterRegistry, "map");
+    }
+
+    private static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("weather.request.stage")
+                .tag("stage", stage)
+                .description("Time spent in each stage of serving a weather view")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,94 @@
+package com.weatherapp.logging;
+
+/**
+ * Timing breakdown of one request for the access log. {@link AccessLogFilter} binds it to the
+ * request thread, and the layers below the controller add the time they spend: key generation
+ * and cache lookups run on that thread, and the snapshot loader captures the instance there
+ * and adds its load time when the load completes. Off the request thread there is nothing to
+ * record into and the static recorders do nothing.
+ */
+public final class RequestTiming {
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private long keyNanos;
+    private long cacheNanos;
+    private int cacheHits;
+    private int cacheMisses;
+    private volatile long loadNanos = -1;
+    private long handlerNanos = -1;
+    private volatile boolean loadFailed;
+
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    static void bind(RequestTiming timing) {
+        CURRENT.set(timing);
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    public static void recordKey(long nanos) {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.keyNanos += nanos;
+        }
+    }
+
+    public static void recordCacheLookup(long nanos, boolean hit) {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.cacheNanos += nanos;
+            if (hit) {
+                timing.cacheHits++;
+            } else {
+                timing.cacheMisses++;
+            }
+        }
+    }
+
+    public void recordLoad(long nanos, boolean failed) {
+        this.loadFailed = failed;
+        this.loadNanos = nanos;
+    }
+
+    void markHandlerReturned() {
+        handlerNanos = System.nanoTime() - startNanos;
+    }
+
+    long handlerNanos() {
+        return handlerNanos;
+    }
+
+    long startNanos() {
+        return startNanos;
+    }
+
+    long keyNanos() {
+        return keyNanos;
+    }
+
+    long cacheNanos() {
+        return cacheNanos;
+    }
+
+    int cacheHits() {
+        return cacheHits;
+    }
+
+    int cacheMisses() {
+        return cacheMisses;
+    }
+
+    long loadNanos() {
+        return loadNanos;
+    }
+
+    boolean loadFailed() {
+        return loadFailed;
+    }
+}
@@ -0,0 +1,35 @@
+package com.weatherapp.ratelimit;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+
+/**
+ * Adapts a Bucket4j bucket, such as a proxy over the shared store, to {@link RateLimitBucket}.
+ */
+@RequiredArgsConstructor
+public class Bucket4jRateLimitBucket implements RateLimitBucket {
+
+    private final Bucket bucket;
+    private final Duration refillWindow;
+
+    @Override
+    public RateLimitProbe tryConsume(long tokens) {
+        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(tokens);
+        return probe.isConsumed()
+                ? RateLimitProbe.consumed(probe.getRemainingTokens())
+                : RateLimitProbe.rejected(probe.getRemainingTokens(), probe.getNanosToWaitForRefill());
+    }
+
+    @Override
+    public void consumeIgnoringLimits(long tokens) {
+        bucket.consumeIgnoringRateLimits(tokens);
+    }
+
+    @Override
+    public Duration refillWindow() {
+        return refillWindow;
+    }
+}
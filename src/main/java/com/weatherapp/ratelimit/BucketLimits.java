@@ -0,0 +1,53 @@
+package com.weatherapp.ratelimit;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Immutable set of bandwidths (capacity refilled greedily over a period) shared by every bucket
+ * created with it, so per-key buckets only carry their mutable counters.
+ */
+public final class BucketLimits {
+
+    private final long[] capacities;
+    private final long[] periodNanos;
+
+    private BucketLimits(long[] capacities, long[] periodNanos) {
+        this.capacities = capacities;
+        this.periodNanos = periodNanos;
+    }
+
+    public static BucketLimits of(long capacity, Duration period) {
+        return new BucketLimits(new long[0], new long[0]).and(capacity, period);
+    }
+
+    public BucketLimits and(long capacity, Duration period) {
+        if (capacity <= 0 || period.isZero() || period.isNegative()) {
+            throw new IllegalArgumentException("Bandwidth capacity and period must be positive");
+        }
+        long[] newCapacities = Arrays.copyOf(capacities, capacities.length + 1);
+        long[] newPeriods = Arrays.copyOf(periodNanos, periodNanos.length + 1);
+        newCapacities[capacities.length] = capacity;
+        newPeriods[periodNanos.length] = period.toNanos();
+        return new BucketLimits(newCapacities, newPeriods);
+    }
+
+    public int size() {
+        return capacities.length;
+    }
+
+    public long capacity(int index) {
+        return capacities[index];
+    }
+
+    public long periodNanos(int index) {
+        return periodNanos[index];
+    }
+
+    /**
+     * The longest refill period, after which an idle bucket is full again and can be forgotten.
+     */
+    public Duration refillWindow() {
+        return Duration.ofNanos(Arrays.stream(periodNanos).max().orElse(0));
+    }
+}
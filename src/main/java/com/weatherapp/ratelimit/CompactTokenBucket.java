@@ -0,0 +1,117 @@
+package com.weatherapp.ratelimit;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Local token bucket holding only a token count and last refill time per bandwidth in one
+ * {@code long[]}; the limits themselves are shared. Keeps per-client memory small when the
+ * store holds one bucket per client address.
+ */
+public final class CompactTokenBucket implements RateLimitBucket {
+
+    private final BucketLimits limits;
+    // tokens at [2i], last refill nanoTime at [2i + 1]
+    private final long[] state;
+    private final LongSupplier nanoTicker;
+
+    public CompactTokenBucket(BucketLimits limits) {
+        this(limits, System::nanoTime);
+    }
+
+    CompactTokenBucket(BucketLimits limits, LongSupplier nanoTicker) {
+        this.limits = limits;
+        this.state = new long[limits.size() * 2];
+        this.nanoTicker = nanoTicker;
+        long now = nanoTicker.getAsLong();
+        for (int i = 0; i < limits.size(); i++) {
+            state[2 * i] = limits.capacity(i);
+            state[2 * i + 1] = now;
+        }
+    }
+
+    @Override
+    public synchronized RateLimitProbe tryConsume(long tokens) {
+        long now = nanoTicker.getAsLong();
+        long available = Long.MAX_VALUE;
+        long nanosToWait = 0;
+
+        for (int i = 0; i < limits.size(); i++) {
+            refill(i, now);
+            long tokensHere = state[2 * i];
+            available = Math.min(available, tokensHere);
+            if (tokensHere < tokens) {
+                nanosToWait = Math.max(nanosToWait, nanosToRefill(i, tokens - tokensHere, now));
+            }
+        }
+
+        if (available < tokens) {
+            return RateLimitProbe.rejected(available, nanosToWait);
+        }
+
+        for (int i = 0; i < limits.size(); i++) {
+            state[2 * i] -= tokens;
+        }
+        return RateLimitProbe.consumed(available - tokens);
+    }
+
+    @Override
+    public synchronized void consumeIgnoringLimits(long tokens) {
+        long now = nanoTicker.getAsLong();
+        for (int i = 0; i < limits.size(); i++) {
+            refill(i, now);
+            state[2 * i] -= tokens;
+        }
+    }
+
+    /**
+     * Time until every bandwidth is full again, including any debt left by
+     * {@link #consumeIgnoringLimits}, plus one refill window so tokens taken right after this
+     * call are covered as well.
+     */
+    @Override
+    public synchronized Duration refillWindow() {
+        long now = nanoTicker.getAsLong();
+        long untilFull = 0;
+        for (int i = 0; i < limits.size(); i++) {
+            refill(i, now);
+            untilFull = Math.max(untilFull, nanosToRefill(i, limits.capacity(i) - state[2 * i], now));
+        }
+        return limits.refillWindow().plusNanos(untilFull);
+    }
+
+    private void refill(int index, long now) {
+        long capacity = limits.capacity(index);
+        long period = limits.periodNanos(index);
+        long deficit = capacity - state[2 * index];
+        if (deficit <= 0) {
+            state[2 * index + 1] = now;
+            return;
+        }
+
+        long elapsed = now - state[2 * index + 1];
+        long added = (long) ((double) elapsed * capacity / period);
+        if (added <= 0) {
+            return;
+        }
+        // refill proportionally even after a whole period, so debt is repaid rather than forgiven
+        if (added >= deficit) {
+            state[2 * index] = capacity;
+            state[2 * index + 1] = now;
+            return;
+        }
+        state[2 * index] += added;
+        // advance only by the time the whole tokens took, so fractional progress is kept
+        state[2 * index + 1] += (long) ((double) added * period / capacity);
+    }
+
+    private long nanosToRefill(int index, long deficit, long now) {
+        long capacity = limits.capacity(index);
+        long period = limits.periodNanos(index);
+        if (deficit <= 0) {
+            return 0;
+        }
+        long needed = (long) Math.ceil((double) deficit * period / capacity);
+        return Math.max(0, needed - (now - state[2 * index + 1]));
+    }
+}
@@ -0,0 +1,22 @@
+package com.weatherapp.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * Token bucket for a single client key.
+ */
+public interface RateLimitBucket {
+
+    RateLimitProbe tryConsume(long tokens);
+
+    /**
+     * Takes tokens even if that leaves the bucket negative, deferring the cost to later requests.
+     */
+    void consumeIgnoringLimits(long tokens);
+
+    /**
+     * How long the bucket must stay idle before it is full again and can be dropped, including
+     * the time to repay any debt.
+     */
+    Duration refillWindow();
+}
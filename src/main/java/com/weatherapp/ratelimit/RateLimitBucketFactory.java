@@ -0,0 +1,10 @@
+package com.weatherapp.ratelimit;
+
+/**
+ * Creates the bucket backing a client key under a plan.
+ */
+@FunctionalInterface
+public interface RateLimitBucketFactory {
+
+    RateLimitBucket create(String key, RateLimitPlan plan);
+}
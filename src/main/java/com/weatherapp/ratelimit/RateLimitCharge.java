@@ -0,0 +1,75 @@
+package com.weatherapp.ratelimit;
+
+import com.weatherapp.exception.RateLimitExceededException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bucket of the current request, exposed as a request attribute so handlers can charge costs
+ * only known after the interceptor ran, such as the size of a batch or an upstream fetch.
+ */
+@Slf4j
+public final class RateLimitCharge {
+
+    public static final String ATTRIBUTE = "com.weatherapp.ratelimit.RateLimitCharge";
+
+    private final RateLimitBucket bucket;
+    private final String clientId;
+    private final long cacheMissCost;
+    private final long batchLocationCost;
+    private final Runnable onDebt;
+
+    public RateLimitCharge(RateLimitBucket bucket, String clientId, long cacheMissCost, long batchLocationCost,
+                           Runnable onDebt) {
+        this.bucket = bucket;
+        this.clientId = clientId;
+        this.cacheMissCost = cacheMissCost;
+        this.batchLocationCost = batchLocationCost;
+        this.onDebt = onDebt;
+    }
+
+    /**
+     * Takes the cost of a batch up front, per grid cell and requested view, rejecting the batch if
+     * the client cannot afford it.
+     */
+    public void requireBatch(int cellViews) {
+        long cost = batchLocationCost * cellViews;
+        if (cost <= 0) {
+            return;
+        }
+
+        RateLimitProbe probe;
+        try {
+            probe = bucket.tryConsume(cost);
+        } catch (RuntimeException e) {
+            log.warn("Rate limit state unavailable for client: {}, allowing batch: {}", clientId, e.getMessage());
+            return;
+        }
+        if (!probe.consumed()) {
+            throw rejected(clientId, probe);
+        }
+    }
+
+    /**
+     * Charges an upstream fetch after the fact. The bucket may go into debt, which throttles the
+     * client's following requests rather than failing the one already served; {@code onDebt}
+     * lets the bucket store keep the bucket until that debt is repaid.
+     */
+    public void chargeCacheMiss() {
+        if (cacheMissCost <= 0) {
+            return;
+        }
+
+        try {
+            bucket.consumeIgnoringLimits(cacheMissCost);
+            onDebt.run();
+        } catch (RuntimeException e) {
+            log.debug("Failed to charge cache miss for client: {}: {}", clientId, e.getMessage());
+        }
+    }
+
+    public static RateLimitExceededException rejected(String clientId, RateLimitProbe probe) {
+        long waitForRefill = probe.nanosToWaitForRefill() / 1_000_000_000;
+        log.warn("Rate limit exceeded for client: {} (retry after: {}s)", clientId, waitForRefill);
+        return new RateLimitExceededException("Rate limit exceeded. Please try again later.", waitForRefill);
+    }
+}
@@ -0,0 +1,44 @@
+package com.weatherapp.ratelimit;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.ConfigurationBuilder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * A named sustained limit with an optional shorter burst limit on top. The signature changes
+ * whenever the limits do, so buckets created under an older definition of the plan are not
+ * reused after a reload.
+ */
+@Getter
+public final class RateLimitPlan {
+
+    private final String name;
+    private final BucketLimits limits;
+    private final BucketConfiguration configuration;
+    private final String signature;
+
+    private RateLimitPlan(String name, BucketLimits limits, BucketConfiguration configuration, String signature) {
+        this.name = name;
+        this.limits = limits;
+        this.configuration = configuration;
+        this.signature = signature;
+    }
+
+    public static RateLimitPlan of(String name, long sustainedCapacity, Duration sustainedPeriod,
+                                   Long burstCapacity, Duration burstPeriod) {
+        BucketLimits limits = BucketLimits.of(sustainedCapacity, sustainedPeriod);
+        ConfigurationBuilder configuration = BucketConfiguration.builder()
+                .addLimit(Bandwidth.simple(sustainedCapacity, sustainedPeriod));
+        String signature = name + ":" + sustainedCapacity + "/" + sustainedPeriod.toSeconds();
+
+        if (burstCapacity != null && burstPeriod != null) {
+            limits = limits.and(burstCapacity, burstPeriod);
+            configuration.addLimit(Bandwidth.simple(burstCapacity, burstPeriod));
+            signature += ":" + burstCapacity + "/" + burstPeriod.toSeconds();
+        }
+        return new RateLimitPlan(name, limits, configuration.build(), signature);
+    }
+}
@@ -0,0 +1,135 @@
+package com.weatherapp.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resolves the rate-limit plan for an API key. Plans and key assignments come from the JSON file
+ * at {@code weather.rate-limit.plans-file}, re-read when a filesystem file changes; without one, every
+ * client gets a single {@code requests-per-minute} plan.
+ */
+@Slf4j
+@Component
+public class RateLimitPlanRegistry {
+
+    public static final String DEFAULT_PLAN = "default";
+
+    private final ObjectMapper objectMapper;
+    private final Resource plansResource;
+    private final RateLimitPlan fallbackPlan;
+    private volatile Plans plans;
+    private volatile long lastModified;
+
+    public RateLimitPlanRegistry(
+            ObjectMapper objectMapper,
+            ResourceLoader resourceLoader,
+            @Value("${weather.rate-limit.plans-file}") String plansFile,
+            @Value("${weather.rate-limit.requests-per-minute}") long requestsPerMinute) {
+        this.objectMapper = objectMapper;
+        this.fallbackPlan = RateLimitPlan.of(DEFAULT_PLAN, requestsPerMinute, Duration.ofMinutes(1), null, null);
+        this.plans = new Plans(fallbackPlan, Map.of(), Map.of());
+
+        if (plansFile == null || plansFile.isBlank()) {
+            this.plansResource = null;
+            return;
+        }
+
+        this.plansResource = resourceLoader.getResource(plansFile);
+        try {
+            load();
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("Failed to load rate limit plans from " + plansFile, e);
+        }
+    }
+
+    public RateLimitPlan planFor(String apiKey) {
+        Plans current = plans;
+        if (apiKey == null || apiKey.isBlank()) {
+            return current.defaultPlan;
+        }
+        String planName = current.apiKeys.get(apiKey);
+        return planName != null ? current.byName.getOrDefault(planName, current.defaultPlan) : current.defaultPlan;
+    }
+
+    @Scheduled(fixedDelayString = "${weather.rate-limit.plans-reload-ms}")
+    public void reloadIfChanged() {
+        if (plansResource == null || !plansResource.isFile()) {
+            return;
+        }
+
+        try {
+            if (plansResource.lastModified() != lastModified) {
+                load();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Keeping current rate limit plans, reload failed: {}", e.getMessage());
+        }
+    }
+
+    private void load() throws IOException {
+        long modified = plansResource.isFile() ? plansResource.lastModified() : 0L;
+        PlansFile file;
+        try (InputStream in = plansResource.getInputStream()) {
+            file = objectMapper.readValue(in, PlansFile.class);
+        }
+
+        Map<String, RateLimitPlan> byName = new HashMap<>();
+        file.getPlans().forEach((name, definition) -> byName.put(name, definition.toPlan(name)));
+
+        RateLimitPlan defaultPlan = file.getDefaultPlan() != null
+                ? byName.get(file.getDefaultPlan())
+                : fallbackPlan;
+        if (defaultPlan == null) {
+            throw new IllegalArgumentException("Unknown default plan: " + file.getDefaultPlan());
+        }
+        file.getApiKeys().forEach((key, planName) -> {
+            if (!byName.containsKey(planName)) {
+                throw new IllegalArgumentException("API key assigned to unknown plan: " + planName);
+            }
+        });
+
+        this.plans = new Plans(defaultPlan, Map.copyOf(byName), Map.copyOf(file.getApiKeys()));
+        this.lastModified = modified;
+        log.info("Loaded {} rate limit plans for {} API keys (default: {})",
+                byName.size(), file.getApiKeys().size(), defaultPlan.getName());
+    }
+
+    private record Plans(RateLimitPlan defaultPlan, Map<String, RateLimitPlan> byName, Map<String, String> apiKeys) {
+    }
+
+    @Data
+    @NoArgsConstructor
+    static class PlansFile {
+        private String defaultPlan;
+        private Map<String, PlanDefinition> plans = new HashMap<>();
+        private Map<String, String> apiKeys = new HashMap<>();
+    }
+
+    @Data
+    @NoArgsConstructor
+    static class PlanDefinition {
+        private long sustainedCapacity;
+        private long sustainedPeriodSeconds;
+        private Long burstCapacity;
+        private Long burstPeriodSeconds;
+
+        RateLimitPlan toPlan(String name) {
+            return RateLimitPlan.of(name,
+                    sustainedCapacity, Duration.ofSeconds(sustainedPeriodSeconds),
+                    burstCapacity, burstPeriodSeconds != null ? Duration.ofSeconds(burstPeriodSeconds) : null);
+        }
+    }
+}
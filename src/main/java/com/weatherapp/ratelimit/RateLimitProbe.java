@@ -0,0 +1,16 @@
+package com.weatherapp.ratelimit;
+
+/**
+ * Outcome of a consumption attempt: whether the tokens were taken, how many remain, and how long
+ * to wait before the request could succeed when they were not.
+ */
+public record RateLimitProbe(boolean consumed, long remainingTokens, long nanosToWaitForRefill) {
+
+    public static RateLimitProbe consumed(long remainingTokens) {
+        return new RateLimitProbe(true, remainingTokens, 0);
+    }
+
+    public static RateLimitProbe rejected(long remainingTokens, long nanosToWaitForRefill) {
+        return new RateLimitProbe(false, remainingTokens, nanosToWaitForRefill);
+    }
+}
@@ -0,0 +1,204 @@
+package com.weatherapp.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weatherapp.cache.LocationKey;
+import com.weatherapp.cache.LocationKeyGenerator;
+import com.weatherapp.cache.LocationPopularity;
+import com.weatherapp.dto.BatchWeatherRequest;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Optional warm-up after startup. Loads a seed list made of the configured locations plus the hot
+ * locations written by the previous run at shutdown, prefetching them in parallel. Fresh snapshots
+ * in the persistent store or the shared tier are promoted first, so a replica restarted during a
+ * rolling deploy only fetches what no other replica holds. Readiness is reported through
+ * {@link CacheWarmUpHealthIndicator} until enough of them are loaded.
+ */
+@Slf4j
+@Component
+public class CacheWarmUp {
+
+    private static final TypeReference<List<BatchWeatherRequest.Location>> LOCATION_LIST = new TypeReference<>() {
+    };
+
+    private final WeatherSnapshotLoader snapshotLoader;
+    private final LocationKeyGenerator locationKeyGenerator;
+    private final LocationPopularity popularity;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final String configuredLocations;
+    private final File hotKeysFile;
+    private final int maxConcurrency;
+    private final double readyFraction;
+    private final Duration timeout;
+
+    private final AtomicInteger loaded = new AtomicInteger();
+    private volatile int total = -1;
+    private volatile long startedAt;
+
+    public CacheWarmUp(
+            WeatherSnapshotLoader snapshotLoader,
+            LocationKeyGenerator locationKeyGenerator,
+            LocationPopularity popularity,
+            ObjectMapper objectMapper,
+            @Value("${weather.cache.warm-up.enabled}") boolean enabled,
+            @Value("${weather.cache.warm-up.locations}") String configuredLocations,
+            @Value("${weather.cache.warm-up.hot-keys-file}") String hotKeysFile,
+            @Value("${weather.cache.warm-up.max-concurrency}") int maxConcurrency,
+            @Value("${weather.cache.warm-up.ready-percent}") int readyPercent,
+            @Value("${weather.cache.warm-up.timeout-seconds}") long timeoutSeconds) {
+        this.snapshotLoader = snapshotLoader;
+        this.locationKeyGenerator = locationKeyGenerator;
+        this.popularity = popularity;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.configuredLocations = configuredLocations;
+        this.hotKeysFile = hotKeysFile.isBlank() ? null : new File(hotKeysFile);
+        this.maxConcurrency = maxConcurrency;
+        this.readyFraction = readyPercent / 100.0;
+        this.timeout = Duration.ofSeconds(timeoutSeconds);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+
+        Set<LocationKey> seeds = new LinkedHashSet<>();
+        seeds.addAll(parseConfiguredLocations());
+        seeds.addAll(readHotKeys());
+        List<LocationKey> pending = seeds.stream()
+                .filter(key -> snapshotLoader.remainingFreshNanos(key) == 0)
+                .toList();
+
+        startedAt = System.nanoTime();
+        loaded.set(seeds.size() - pending.size());
+        total = seeds.size();
+        log.info("Warming up {} locations ({} already fresh)", seeds.size(), seeds.size() - pending.size());
+
+        Flux.fromIterable(pending)
+                .flatMap(key -> Mono.fromFuture(() -> snapshotLoader.prefetch(key, Duration.ZERO))
+                        .doOnSuccess(snapshot -> {
+                            if (snapshot != null) {
+                                loaded.incrementAndGet();
+                            }
+                        })
+                        .onErrorResume(error -> {
+                            log.debug("Warm-up failed for {}: {}", key, error.getMessage());
+                            return Mono.empty();
+                        }), maxConcurrency)
+                .doOnComplete(() -> log.info("Warm-up finished: {}/{} locations loaded", loaded.get(), total))
+                .subscribe();
+    }
+
+    /**
+     * Writes the current hot locations so the next run can warm up with them.
+     */
+    @PreDestroy
+    public void writeHotKeys() {
+        if (!enabled || hotKeysFile == null) {
+            return;
+        }
+
+        List<BatchWeatherRequest.Location> locations = popularity.topLocations().stream()
+                .map(key -> BatchWeatherRequest.Location.builder()
+                        .latitude(locationKeyGenerator.latitudeOf(key))
+                        .longitude(locationKeyGenerator.longitudeOf(key))
+                        .build())
+                .toList();
+        try {
+            File parent = hotKeysFile.getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                parent.mkdirs();
+            }
+            objectMapper.writeValue(hotKeysFile, locations);
+            log.info("Wrote {} hot locations to {}", locations.size(), hotKeysFile);
+        } catch (IOException e) {
+            log.warn("Failed to write hot locations to {}: {}", hotKeysFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Complete once the required share of seeds is loaded or the timeout has passed. Only
+     * successful loads count, so an upstream failing fast cannot report a cold cache as ready,
+     * while the timeout keeps an unreachable upstream from holding readiness back forever.
+     */
+    public boolean isComplete() {
+        if (!enabled) {
+            return true;
+        }
+        int seeds = total;
+        if (seeds < 0) {
+            return false;
+        }
+        return seeds == 0
+                || loaded.get() >= Math.ceil(seeds * readyFraction)
+                || System.nanoTime() - startedAt >= timeout.toNanos();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getLoaded() {
+        return loaded.get();
+    }
+
+    public int getTotal() {
+        return Math.max(0, total);
+    }
+
+    private List<LocationKey> parseConfiguredLocations() {
+        if (configuredLocations == null || configuredLocations.isBlank()) {
+            return List.of();
+        }
+
+        List<LocationKey> keys = new ArrayList<>();
+        for (String entry : configuredLocations.split(";")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            try {
+                String[] parts = entry.split(",");
+                keys.add(locationKeyGenerator.keyFor(new BigDecimal(parts[0].trim()), new BigDecimal(parts[1].trim())));
+            } catch (RuntimeException e) {
+                log.warn("Ignoring invalid warm-up location '{}'", entry.trim());
+            }
+        }
+        return keys;
+    }
+
+    private List<LocationKey> readHotKeys() {
+        if (hotKeysFile == null || !hotKeysFile.isFile()) {
+            return List.of();
+        }
+
+        try {
+            return objectMapper.readValue(hotKeysFile, LOCATION_LIST).stream()
+                    .map(location -> locationKeyGenerator.keyFor(location.getLatitude(), location.getLongitude()))
+                    .toList();
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable hot locations file {}: {}", hotKeysFile, e.getMessage());
+            return List.of();
+        }
+    }
+}
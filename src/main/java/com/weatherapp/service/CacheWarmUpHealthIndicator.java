@@ -0,0 +1,27 @@
+package com.weatherapp.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports {@code OUT_OF_SERVICE} while the startup warm-up is below its ready percentage; part
+ * of the readiness group so the instance takes no traffic while cold.
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheWarmUpHealthIndicator implements HealthIndicator {
+
+    private final CacheWarmUp cacheWarmUp;
+
+    @Override
+    public Health health() {
+        Health.Builder builder = cacheWarmUp.isComplete() ? Health.up() : Health.outOfService();
+        if (cacheWarmUp.isEnabled()) {
+            builder.withDetail("loaded", cacheWarmUp.getLoaded())
+                    .withDetail("total", cacheWarmUp.getTotal());
+        }
+        return builder.build();
+    }
+}
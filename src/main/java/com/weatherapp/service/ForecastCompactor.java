@@ -0,0 +1,60 @@
+package com.weatherapp.service;
+
+import com.weatherapp.dto.CompactDailyForecasts;
+import com.weatherapp.dto.CompactHourlyForecasts;
+import com.weatherapp.dto.DailyWeatherResponse;
+import com.weatherapp.dto.HourlyWeatherResponse;
+import com.weatherapp.dto.WeatherConditionTable;
+import com.weatherapp.dto.WeatherSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Swaps the hourly and daily lists of a snapshot for their columnar form before the views are
+ * cached. Owns the weather condition table the lists are encoded with; once it holds
+ * {@code max-conditions} entries it is replaced by an empty one, and the old table is freed with
+ * the last cached list that uses it, so memory stays bounded however many conditions come by.
+ */
+@Slf4j
+@Component
+public class ForecastCompactor {
+
+    private final int maxConditions;
+    private volatile WeatherConditionTable conditions;
+
+    public ForecastCompactor(@Value("${weather.cache.compact.max-conditions}") int maxConditions) {
+        this.maxConditions = maxConditions;
+        this.conditions = new WeatherConditionTable(maxConditions);
+    }
+
+    /**
+     * Compacts the forecast lists in place. The shared and persistent tiers serialize the same
+     * JSON either way and read back plain lists.
+     */
+    public void compact(WeatherSnapshot snapshot) {
+        WeatherConditionTable table = conditions();
+        HourlyWeatherResponse hourly = snapshot.getHourly();
+        if (hourly != null) {
+            hourly.setHourly(CompactHourlyForecasts.of(hourly.getHourly(), table));
+        }
+        DailyWeatherResponse daily = snapshot.getDaily();
+        if (daily != null) {
+            daily.setDaily(CompactDailyForecasts.of(daily.getDaily(), table));
+        }
+    }
+
+    private WeatherConditionTable conditions() {
+        WeatherConditionTable table = conditions;
+        if (!table.isFull()) {
+            return table;
+        }
+        synchronized (this) {
+            if (conditions == table) {
+                conditions = new WeatherConditionTable(maxConditions);
+                log.info("Weather condition table reached {} entries, starting a new one", maxConditions);
+            }
+            return conditions;
+        }
+    }
+}
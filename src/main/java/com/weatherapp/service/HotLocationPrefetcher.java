@@ -0,0 +1,113 @@
+package com.weatherapp.service;
+
+import com.weatherapp.cache.LocationKey;
+import com.weatherapp.cache.LocationPopularity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the most popular locations warm. Each tick it takes the top locations from
+ * {@link LocationPopularity} and reloads those that will stop being fresh before the next tick
+ * plus a lead time. Reloads go through {@link WeatherSnapshotLoader}, so they share its
+ * single-flight, quota and upstream guards, with bounded concurrency and a random start delay
+ * to spread them out. A location another replica has already refreshed is taken from the stored
+ * tiers; only those whose stored copy is due as well are fetched from the upstream.
+ */
+@Slf4j
+@Component
+public class HotLocationPrefetcher {
+
+    private final WeatherSnapshotLoader snapshotLoader;
+    private final LocationPopularity popularity;
+    private final boolean enabled;
+    private final Duration dueWithin;
+    private final long dueWithinNanos;
+    private final int maxConcurrency;
+    private final long maxJitterMs;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Counter prefetched;
+    private final Counter failed;
+
+    public HotLocationPrefetcher(
+            WeatherSnapshotLoader snapshotLoader,
+            LocationPopularity popularity,
+            @Value("${weather.cache.prefetch.enabled}") boolean enabled,
+            @Value("${weather.cache.prefetch.interval-ms}") long intervalMs,
+            @Value("${weather.cache.prefetch.lead-seconds}") long leadSeconds,
+            @Value("${weather.cache.prefetch.max-concurrency}") int maxConcurrency,
+            @Value("${weather.cache.prefetch.max-jitter-ms}") long maxJitterMs,
+            MeterRegistry meterRegistry) {
+        this.snapshotLoader = snapshotLoader;
+        this.popularity = popularity;
+        this.enabled = enabled;
+        this.dueWithin = Duration.ofMillis(intervalMs).plusSeconds(leadSeconds);
+        this.dueWithinNanos = dueWithin.toNanos();
+        this.maxConcurrency = maxConcurrency;
+        this.maxJitterMs = maxJitterMs;
+        this.prefetched = Counter.builder("weather.prefetch.fetches")
+                .tag("outcome", "success")
+                .description("Background prefetches of popular locations")
+                .register(meterRegistry);
+        this.failed = Counter.builder("weather.prefetch.fetches")
+                .tag("outcome", "failure")
+                .description("Background prefetches of popular locations")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${weather.cache.prefetch.interval-ms}",
+            initialDelayString = "${weather.cache.prefetch.interval-ms}")
+    public void prefetchHotLocations() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+
+        boolean started = false;
+        try {
+            List<LocationKey> due = popularity.topLocations().stream()
+                    .filter(key -> snapshotLoader.remainingFreshNanos(key) < dueWithinNanos)
+                    .toList();
+            if (due.isEmpty()) {
+                return;
+            }
+
+            log.debug("Prefetching {} popular locations", due.size());
+            Flux.fromIterable(due)
+                    .flatMap(this::prefetch, maxConcurrency)
+                    .doFinally(signal -> running.set(false))
+                    .subscribe();
+            started = true;
+        } finally {
+            if (!started) {
+                running.set(false);
+            }
+        }
+    }
+
+    private Mono<Void> prefetch(LocationKey key) {
+        long jitterMs = maxJitterMs > 0 ? ThreadLocalRandom.current().nextLong(maxJitterMs) : 0;
+        return Mono.delay(Duration.ofMillis(jitterMs))
+                .then(Mono.fromFuture(() -> snapshotLoader.prefetch(key, dueWithin)))
+                .doOnSuccess(snapshot -> {
+                    if (snapshot != null) {
+                        prefetched.increment();
+                    }
+                })
+                .onErrorResume(error -> {
+                    failed.increment();
+                    log.debug("Prefetch failed for {}: {}", key, error.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+}
@@ -0,0 +1,132 @@
+package com.weatherapp.service;
+
+import com.weatherapp.cache.LocationKey;
+import com.weatherapp.cache.LocationKeyGenerator;
+import com.weatherapp.dto.BatchWeatherRequest;
+import com.weatherapp.dto.BatchWeatherResult;
+import com.weatherapp.dto.CurrentWeatherResponse;
+import com.weatherapp.dto.DailyWeatherResponse;
+import com.weatherapp.dto.HourlyWeatherResponse;
+import com.weatherapp.dto.WeatherSnapshot;
+import com.weatherapp.dto.WeatherView;
+import com.weatherapp.exception.InvalidLocationException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Resolves many locations in one request. Locations that fall into the same grid cell are
+ * loaded once; each cell goes through the cached {@link WeatherService} views, so hits are
+ * served from the caches and misses share the single-flight upstream fetch.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WeatherBatchService {
+
+    private final WeatherService weatherService;
+    private final LocationKeyGenerator locationKeyGenerator;
+
+    @Value("${weather.batch.max-concurrency}")
+    private int maxConcurrency;
+
+    public Flux<BatchWeatherResult> getBatch(List<BatchWeatherRequest.Location> locations,
+                                             Set<WeatherView> views) {
+        Set<WeatherView> requestedViews = requestedViews(views);
+
+        Map<LocationKey, List<BatchWeatherRequest.Location>> locationsByKey = new LinkedHashMap<>();
+        for (BatchWeatherRequest.Location location : locations) {
+            LocationKey key = locationKeyGenerator.keyFor(location.getLatitude(), location.getLongitude());
+            locationsByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(location);
+        }
+
+        log.debug("Batch request: {} locations in {} grid cells", locations.size(), locationsByKey.size());
+
+        return Flux.fromIterable(locationsByKey.values())
+                .flatMap(group -> loadGroup(group, requestedViews), maxConcurrency);
+    }
+
+    /**
+     * Number of views the batch loads: distinct grid cells times requested views.
+     */
+    public int cellViews(List<BatchWeatherRequest.Location> locations, Set<WeatherView> views) {
+        Set<LocationKey> cells = new HashSet<>();
+        for (BatchWeatherRequest.Location location : locations) {
+            cells.add(locationKeyGenerator.keyFor(location.getLatitude(), location.getLongitude()));
+        }
+        return cells.size() * requestedViews(views).size();
+    }
+
+    private static Set<WeatherView> requestedViews(Set<WeatherView> views) {
+        return views == null || views.isEmpty()
+                ? EnumSet.allOf(WeatherView.class)
+                : EnumSet.copyOf(views);
+    }
+
+    private Flux<BatchWeatherResult> loadGroup(List<BatchWeatherRequest.Location> group,
+                                               Set<WeatherView> views) {
+        BatchWeatherRequest.Location first = group.get(0);
+
+        return Mono.defer(() -> Mono.fromFuture(loadViews(first, views)))
+                .flatMapIterable(snapshot -> group.stream()
+                        .map(location -> BatchWeatherResult.builder()
+                                .latitude(location.getLatitude())
+                                .longitude(location.getLongitude())
+                                .current(snapshot.getCurrent())
+                                .hourly(snapshot.getHourly())
+                                .daily(snapshot.getDaily())
+                                .build())
+                        .toList())
+                .onErrorResume(error -> {
+                    String message = errorMessage(error);
+                    return Flux.fromIterable(group)
+                            .map(location -> BatchWeatherResult.builder()
+                                    .latitude(location.getLatitude())
+                                    .longitude(location.getLongitude())
+                                    .error(message)
+                                    .build());
+                });
+    }
+
+    private CompletableFuture<WeatherSnapshot> loadViews(BatchWeatherRequest.Location location,
+                                                         Set<WeatherView> views) {
+        CompletableFuture<CurrentWeatherResponse> current = views.contains(WeatherView.CURRENT)
+                ? weatherService.getCurrentWeather(location.getLatitude(), location.getLongitude())
+                : CompletableFuture.completedFuture(null);
+        CompletableFuture<HourlyWeatherResponse> hourly = views.contains(WeatherView.HOURLY)
+                ? weatherService.getHourlyForecast(location.getLatitude(), location.getLongitude())
+                : CompletableFuture.completedFuture(null);
+        CompletableFuture<DailyWeatherResponse> daily = views.contains(WeatherView.DAILY)
+                ? weatherService.getDailyForecast(location.getLatitude(), location.getLongitude())
+                : CompletableFuture.completedFuture(null);
+
+        return CompletableFuture.allOf(current, hourly, daily)
+                .thenApply(ignored -> WeatherSnapshot.builder()
+                        .current(current.join())
+                        .hourly(hourly.join())
+                        .daily(daily.join())
+                        .build());
+    }
+
+    private String errorMessage(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause()
+                : error;
+        return cause instanceof InvalidLocationException
+                ? cause.getMessage()
+                : "Failed to fetch weather data from external provider";
+    }
+}
@@ -3,6 +3,7 @@ package com.weatherapp.service;
 import com.weatherapp.dto.CurrentWeatherResponse;
 import com.weatherapp.dto.DailyWeatherResponse;
 import com.weatherapp.dto.HourlyWeatherResponse;
+import com.weatherapp.dto.WeatherSnapshot;
 import com.weatherapp.dto.openweather.OpenWeatherResponse;
 import org.springframework.stereotype.Service;
 
@@ -48,6 +49,25 @@ public class WeatherDataMapper {
         return snow != null ? snow.getOneHour() : null;
     }
 
+    public WeatherSnapshot mapToWeatherSnapshotFromApi(
+            OpenWeatherResponse apiResponse,
+            BigDecimal latitude,
+            BigDecimal longitude) {
+
+        return WeatherSnapshot.builder()
+                .current(apiResponse.getCurrent() != null
+                        ? mapToCurrentWeatherResponseFromApi(apiResponse.getCurrent(), latitude, longitude)
+                        : null)
+                .hourly(apiResponse.getHourly() != null && !apiResponse.getHourly().isEmpty()
+                        ? mapToHourlyWeatherResponseFromApi(apiResponse.getHourly(), latitude, longitude)
+                        : null)
+                .daily(apiResponse.getDaily() != null && !apiResponse.getDaily().isEmpty()
+                        ? mapToDailyWeatherResponseFromApi(apiResponse.getDaily(), latitude, longitude)
+                        : null)
+                .upstreamTimestamp(apiResponse.getCurrent() != null ? apiResponse.getCurrent().getTimestamp() : null)
+                .build();
+    }
+
     public CurrentWeatherResponse mapToCurrentWeatherResponseFromApi(
             OpenWeatherResponse.Current current,
             BigDecimal latitude,
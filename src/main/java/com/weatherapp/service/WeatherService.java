@@ -1,69 +1,60 @@
 package com.weatherapp.service;
 
-import com.weatherapp.client.OpenWeatherClient;
+import com.weatherapp.cache.LocationKey;
+import com.weatherapp.cache.LocationKeyGenerator;
+import com.weatherapp.config.CacheConfig;
 import com.weatherapp.dto.CurrentWeatherResponse;
 import com.weatherapp.dto.DailyWeatherResponse;
 import com.weatherapp.dto.HourlyWeatherResponse;
-import com.weatherapp.dto.openweather.OpenWeatherResponse;
 import com.weatherapp.exception.InvalidLocationException;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
 
-@Slf4j
 @Service
 @RequiredArgsConstructor
 public class WeatherService {
 
-    private final OpenWeatherClient openWeatherClient;
-    private final WeatherDataMapper mapper;
+    private final WeatherSnapshotLoader snapshotLoader;
+    private final LocationKeyGenerator locationKeyGenerator;
 
-    @Cacheable(value = "currentWeather", key = "#latitude + ':' + #longitude")
-    public CurrentWeatherResponse getCurrentWeather(BigDecimal latitude, BigDecimal longitude) {
+    @Cacheable(value = CacheConfig.CURRENT_WEATHER_CACHE, keyGenerator = CacheConfig.LOCATION_KEY_GENERATOR)
+    public CompletableFuture<CurrentWeatherResponse> getCurrentWeather(BigDecimal latitude, BigDecimal longitude) {
         validateLocation(latitude, longitude);
-        log.info("CACHE MISS: Fetching current weather from external API for location: ({}, {})", 
-                latitude, longitude);
-        
-        OpenWeatherResponse apiResponse = openWeatherClient.fetchWeatherData(latitude, longitude);
-        
-        if (apiResponse.getCurrent() == null) {
-            throw new InvalidLocationException("No current weather data available for this location");
-        }
-
-        return mapper.mapToCurrentWeatherResponseFromApi(apiResponse.getCurrent(), latitude, longitude);
+        LocationKey key = locationKeyGenerator.keyFor(latitude, longitude);
+        return snapshotLoader.load(key, CacheConfig.CURRENT_WEATHER_CACHE).thenApply(snapshot -> {
+            if (snapshot.getCurrent() == null) {
+                throw new InvalidLocationException("No current weather data available for this location");
+            }
+            return snapshot.getCurrent();
+        });
     }
 
-    @Cacheable(value = "hourlyForecast", key = "#latitude + ':' + #longitude")
-    public HourlyWeatherResponse getHourlyForecast(BigDecimal latitude, BigDecimal longitude) {
+    @Cacheable(value = CacheConfig.HOURLY_FORECAST_CACHE, keyGenerator = CacheConfig.LOCATION_KEY_GENERATOR)
+    public CompletableFuture<HourlyWeatherResponse> getHourlyForecast(BigDecimal latitude, BigDecimal longitude) {
         validateLocation(latitude, longitude);
-        log.info("CACHE MISS: Fetching hourly forecast from external API for location: ({}, {})", 
-                latitude, longitude);
-        
-        OpenWeatherResponse apiResponse = openWeatherClient.fetchWeatherData(latitude, longitude);
-        
-        if (apiResponse.getHourly() == null || apiResponse.getHourly().isEmpty()) {
-            throw new InvalidLocationException("No hourly forecast data available for this location");
-        }
-
-        return mapper.mapToHourlyWeatherResponseFromApi(apiResponse.getHourly(), latitude, longitude);
+        LocationKey key = locationKeyGenerator.keyFor(latitude, longitude);
+        return snapshotLoader.load(key, CacheConfig.HOURLY_FORECAST_CACHE).thenApply(snapshot -> {
+            if (snapshot.getHourly() == null) {
+                throw new InvalidLocationException("No hourly forecast data available for this location");
+            }
+            return snapshot.getHourly();
+        });
     }
 
-    @Cacheable(value = "dailyForecast", key = "#latitude + ':' + #longitude")
-    public DailyWeatherResponse getDailyForecast(BigDecimal latitude, BigDecimal longitude) {
+    @Cacheable(value = CacheConfig.DAILY_FORECAST_CACHE, keyGenerator = CacheConfig.LOCATION_KEY_GENERATOR)
+    public CompletableFuture<DailyWeatherResponse> getDailyForecast(BigDecimal latitude, BigDecimal longitude) {
         validateLocation(latitude, longitude);
-        log.info("CACHE MISS: Fetching daily forecast from external API for location: ({}, {})", 
-                latitude, longitude);
-        
-        OpenWeatherResponse apiResponse = openWeatherClient.fetchWeatherData(latitude, longitude);
-        
-        if (apiResponse.getDaily() == null || apiResponse.getDaily().isEmpty()) {
-            throw new InvalidLocationException("No daily forecast data available for this location");
-        }
-
-        return mapper.mapToDailyWeatherResponseFromApi(apiResponse.getDaily(), latitude, longitude);
+        LocationKey key = locationKeyGenerator.keyFor(latitude, longitude);
+        return snapshotLoader.load(key, CacheConfig.DAILY_FORECAST_CACHE).thenApply(snapshot -> {
+            if (snapshot.getDaily() == null) {
+                throw new InvalidLocationException("No daily forecast data available for this location");
+            }
+            return snapshot.getDaily();
+        });
     }
 
     private void validateLocation(BigDecimal latitude, BigDecimal longitude) {
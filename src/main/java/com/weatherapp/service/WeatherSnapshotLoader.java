@@ -0,0 +1,451 @@
+package com.weatherapp.service;
+
+import com.weatherapp.cache.EncodedResponseCache;
+import com.weatherapp.cache.LocationKey;
+import com.weatherapp.cache.LocationKeyGenerator;
+import com.weatherapp.cache.LocationPopularity;
+import com.weatherapp.cache.PersistentSnapshotStore;
+import com.weatherapp.cache.RefreshAheadCache;
+import com.weatherapp.cache.SharedSnapshotTier;
+import com.weatherapp.client.OpenWeatherClient;
+import com.weatherapp.client.UpstreamQuota;
+import com.weatherapp.config.CacheConfig;
+import com.weatherapp.dto.CurrentWeatherResponse;
+import com.weatherapp.dto.DailyWeatherResponse;
+import com.weatherapp.dto.HourlyWeatherResponse;
+import com.weatherapp.dto.WeatherSnapshot;
+import com.weatherapp.exception.ExternalApiException;
+import com.weatherapp.exception.UpstreamUnavailableException;
+import com.weatherapp.logging.RequestStageTimers;
+import com.weatherapp.logging.RequestTiming;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Fetches one {@code /onecall} response per location and fans the mapped views out to the
+ * current, hourly and daily caches, so a dashboard loading all three views costs one upstream call.
+ * Concurrent misses for the same location share a single pending fetch. Also refreshes entries
+ * ahead of expiry for {@link RefreshAheadCache} and falls back to stale views when the upstream fails.
+ * With a {@link SharedSnapshotTier} the view caches act as a near cache in front of the snapshots
+ * shared by all replicas, and a fetch lease keeps concurrent misses on other replicas from
+ * repeating the upstream call. Every upstream fetch is admitted by {@link UpstreamQuota}, which
+ * favours popular locations and stretches the TTL as the daily quota runs low. Loads are recorded
+ * against the requesting view cache, and the stages of serving a view are timed under
+ * {@code weather.request.stage}.
+ */
+@Slf4j
+@Component
+public class WeatherSnapshotLoader {
+
+    private static final String[] VIEW_CACHES = {
+            CacheConfig.CURRENT_WEATHER_CACHE,
+            CacheConfig.HOURLY_FORECAST_CACHE,
+            CacheConfig.DAILY_FORECAST_CACHE
+    };
+
+    private final OpenWeatherClient openWeatherClient;
+    private final WeatherDataMapper mapper;
+    private final CacheManager cacheManager;
+    private final LocationKeyGenerator locationKeyGenerator;
+    private final EncodedResponseCache encodedResponseCache;
+    private final PersistentSnapshotStore persistentStore;
+    private final SharedSnapshotTier sharedTier;
+    private final UpstreamQuota upstreamQuota;
+    private final LocationPopularity popularity;
+    private final ForecastCompactor forecastCompactor;
+    private final boolean streamingDecode;
+    private final ConcurrentMap<LocationKey, CompletableFuture<WeatherSnapshot>> inFlight = new ConcurrentHashMap<>();
+    private final Counter upstreamLoads;
+    private final Counter coalescedLoads;
+    private final Counter staleFallbacks;
+    private final Counter persistentHits;
+    private final Counter sharedHits;
+    private final Timer keyStage;
+    private final Timer cacheStage;
+    private final Timer fetchStage;
+    private final Timer mapStage;
+    private final int warmUpLimit;
+    private final Duration ttl;
+
+    public WeatherSnapshotLoader(
+            OpenWeatherClient openWeatherClient,
+            WeatherDataMapper mapper,
+            CacheManager cacheManager,
+            LocationKeyGenerator locationKeyGenerator,
+            EncodedResponseCache encodedResponseCache,
+            PersistentSnapshotStore persistentStore,
+            SharedSnapshotTier sharedTier,
+            UpstreamQuota upstreamQuota,
+            LocationPopularity popularity,
+            ForecastCompactor forecastCompactor,
+            RequestStageTimers stageTimers,
+            @Value("${weather.api.streaming-decode}") boolean streamingDecode,
+            @Value("${weather.cache.maximum-size}") int warmUpLimit,
+            @Value("${weather.cache.ttl-minutes}") long ttlMinutes,
+            MeterRegistry meterRegistry) {
+        this.openWeatherClient = openWeatherClient;
+        this.mapper = mapper;
+        this.cacheManager = cacheManager;
+        this.locationKeyGenerator = locationKeyGenerator;
+        this.encodedResponseCache = encodedResponseCache;
+        this.persistentStore = persistentStore;
+        this.sharedTier = sharedTier;
+        this.upstreamQuota = upstreamQuota;
+        this.popularity = popularity;
+        this.forecastCompactor = forecastCompactor;
+        this.streamingDecode = streamingDecode;
+        this.warmUpLimit = warmUpLimit;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.upstreamLoads = Counter.builder("weather.snapshot.loads")
+                .description("Snapshot loads that issued an upstream fetch")
+                .register(meterRegistry);
+        this.coalescedLoads = Counter.builder("weather.snapshot.coalesced")
+                .description("Snapshot loads that joined a fetch already in flight for the same location")
+                .register(meterRegistry);
+        this.staleFallbacks = Counter.builder("weather.snapshot.stale_fallbacks")
+                .description("Requests served from an expired entry because the upstream fetch failed")
+                .register(meterRegistry);
+        this.persistentHits = Counter.builder("weather.snapshot.l2_hits")
+                .description("Misses answered by promoting a fresh snapshot from the persistent store")
+                .register(meterRegistry);
+        this.sharedHits = Counter.builder("weather.snapshot.shared_hits")
+                .description("Misses answered by a fresh snapshot another replica stored in the shared tier")
+                .register(meterRegistry);
+        meterRegistry.gaugeMapSize("weather.snapshot.in_flight", Tags.empty(), inFlight);
+        this.keyStage = stageTimers.getKey();
+        this.cacheStage = stageTimers.getCache();
+        this.fetchStage = stageTimers.getFetch();
+        this.mapStage = stageTimers.getMap();
+    }
+
+    @PostConstruct
+    void registerRefreshers() {
+        for (String cacheName : VIEW_CACHES) {
+            if (cacheManager.getCache(cacheName) instanceof RefreshAheadCache refreshAheadCache) {
+                refreshAheadCache.setRefresher(this::refreshAsync);
+                refreshAheadCache.setAccessListener(key -> popularity.record((LocationKey) key));
+                refreshAheadCache.setTtlExtension(upstreamQuota::ttlExtension);
+                refreshAheadCache.setLookupTimer(cacheStage);
+            }
+        }
+        locationKeyGenerator.setKeyTimer(keyStage);
+        sharedTier.onInvalidation(this::evictNearCache);
+    }
+
+    /**
+     * Promotes the most recently fetched snapshots from the persistent store into the view caches,
+     * up to the view cache size, so a restart begins with the previous run's working set instead
+     * of an empty cache. Refresh-ahead keeps popular locations recently fetched.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void warmFromPersistentStore() {
+        if (!persistentStore.isEnabled()) {
+            return;
+        }
+
+        AtomicInteger promoted = new AtomicInteger();
+        persistentStore.forEachRecent(warmUpLimit, (key, snapshot) -> {
+            promote(key, snapshot);
+            promoted.incrementAndGet();
+        });
+        log.info("Warmed {} locations from the persistent snapshot store", promoted.get());
+    }
+
+    /**
+     * Loads a snapshot for the grid cell and populates every view cache.
+     * A snapshot still fresh in the persistent store or the shared tier is promoted instead of
+     * calling the upstream.
+     * If the upstream fails, the last stored views for the cell are returned instead while
+     * they are still retained. The returned future never blocks the calling thread.
+     */
+    public CompletableFuture<WeatherSnapshot> load(LocationKey key, String requestingCache) {
+        long start = System.nanoTime();
+        RequestTiming timing = RequestTiming.current();
+        return loadSnapshot(key, requestingCache).whenComplete((snapshot, error) -> {
+            long elapsed = System.nanoTime() - start;
+            if (cacheManager.getCache(requestingCache) instanceof RefreshAheadCache refreshAheadCache) {
+                refreshAheadCache.recordLoad(elapsed, error == null);
+            }
+            if (timing != null) {
+                timing.recordLoad(elapsed, error != null);
+            }
+        });
+    }
+
+    private CompletableFuture<WeatherSnapshot> loadSnapshot(LocationKey key, String requestingCache) {
+        return fetch(key, () -> storedSnapshot(key, Duration.ZERO)
+                .switchIfEmpty(Mono.defer(() -> fetchFresh(key, requestingCache))))
+                .exceptionally(error -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause()
+                            : error;
+                    if (!(cause instanceof ExternalApiException) || requestingCache == null
+                            || stale(requestingCache, key) == null) {
+                        throw new CompletionException(cause);
+                    }
+                    staleFallbacks.increment();
+                    log.warn("Serving stale weather data for {} after upstream failure: {}", key, cause.getMessage());
+                    return staleSnapshot(key);
+                });
+    }
+
+    /**
+     * Refreshes a location in the background. A snapshot in the persistent store or the shared
+     * tier that stays fresh for at least {@code freshFor} is promoted instead of calling the
+     * upstream, so a replica whose views were invalidated by another replica's fetch picks that
+     * snapshot up rather than fetching it again. Completes with {@code null} when the upstream
+     * quota withholds the fetch.
+     */
+    public CompletableFuture<WeatherSnapshot> prefetch(LocationKey key, Duration freshFor) {
+        return fetch(key, () -> storedSnapshot(key, freshFor)
+                .switchIfEmpty(Mono.defer(() -> fetchInBackground(key))));
+    }
+
+    /**
+     * Shortest time any cached view of the location stays fresh in the view caches; 0 if none is
+     * cached. A view missing while others are cached is skipped, as the upstream payload may lack
+     * that section.
+     */
+    public long remainingFreshNanos(LocationKey key) {
+        long remaining = Long.MAX_VALUE;
+        for (String cacheName : VIEW_CACHES) {
+            if (cacheManager.getCache(cacheName) instanceof RefreshAheadCache refreshAheadCache) {
+                long viewRemaining = refreshAheadCache.remainingFreshNanos(key);
+                if (viewRemaining >= 0) {
+                    remaining = Math.min(remaining, viewRemaining);
+                }
+            }
+        }
+        return remaining == Long.MAX_VALUE ? 0 : remaining;
+    }
+
+    private CompletableFuture<WeatherSnapshot> refreshAsync(Object key) {
+        LocationKey locationKey = (LocationKey) key;
+        return fetch(locationKey, () -> fetchInBackground(locationKey));
+    }
+
+    private Mono<WeatherSnapshot> fetchInBackground(LocationKey key) {
+        if (!upstreamQuota.allows(UpstreamQuota.Demand.BACKGROUND, popularity.isHot(key))) {
+            log.debug("Skipping background refresh for {} to save upstream quota", key);
+            return Mono.empty();
+        }
+        return fetchFresh(key, null);
+    }
+
+    /**
+     * Single-flight load of a location: concurrent calls for the same key share one pending load,
+     * which completes with {@code null} if {@code load} completes empty.
+     */
+    private CompletableFuture<WeatherSnapshot> fetch(LocationKey key, Supplier<Mono<WeatherSnapshot>> load) {
+        CompletableFuture<WeatherSnapshot> pending = new CompletableFuture<>();
+        CompletableFuture<WeatherSnapshot> existing = inFlight.putIfAbsent(key, pending);
+
+        if (existing != null) {
+            coalescedLoads.increment();
+            log.debug("Joining in-flight snapshot load for {}", key);
+            return existing;
+        }
+
+        Mono.defer(load).subscribe(
+                snapshot -> {
+                    inFlight.remove(key, pending);
+                    pending.complete(snapshot);
+                },
+                error -> {
+                    inFlight.remove(key, pending);
+                    pending.completeExceptionally(error);
+                },
+                () -> {
+                    inFlight.remove(key, pending);
+                    pending.complete(null);
+                });
+
+        return pending;
+    }
+
+    /**
+     * A snapshot from the persistent store or the shared tier that stays fresh for at least
+     * {@code freshFor}, read on a worker thread so a miss storm reads and decodes it once. A
+     * persisted snapshot is promoted even when it is past its TTL, so it can serve as a stale
+     * fallback, and a fresh shared one is promoted even when it is due, so it is served until the
+     * refresh lands.
+     */
+    private Mono<WeatherSnapshot> storedSnapshot(LocationKey key, Duration freshFor) {
+        return Mono.fromCallable(() -> {
+            WeatherSnapshot persisted = persistentStore.get(key);
+            if (persisted != null) {
+                promote(key, persisted);
+                if (isFresh(persisted, freshFor)) {
+                    persistentHits.increment();
+                    return persisted;
+                }
+            }
+
+            WeatherSnapshot shared = sharedTier.get(key);
+            if (shared != null && sharedTier.isFresh(shared)) {
+                promote(key, shared);
+                persistentStore.put(key, shared);
+                if (sharedTier.isFresh(shared, freshFor)) {
+                    sharedHits.increment();
+                    return shared;
+                }
+            }
+            return null;
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Fetches the location from the upstream, or waits for the replica holding its fetch lease.
+     * Lease handling and the shared and persistent writes are blocking, so they run on a worker
+     * thread rather than the caller's or the HTTP client's event loop.
+     */
+    private Mono<WeatherSnapshot> fetchFresh(LocationKey key, String requestingCache) {
+        Mono<WeatherSnapshot> upstream = Mono.defer(() -> {
+            UpstreamQuota.Demand demand = demandFor(key, requestingCache);
+            if (!sharedTier.isEnabled()) {
+                return fetchUpstream(key, demand);
+            }
+            if (sharedTier.tryAcquireLease(key)) {
+                return fetchUpstream(key, demand).doFinally(signal -> sharedTier.releaseLease(key));
+            }
+            log.debug("Another replica holds the fetch lease for {}, waiting for its snapshot", key);
+            return sharedTier.awaitPeer(key)
+                    .doOnNext(snapshot -> sharedHits.increment())
+                    .switchIfEmpty(Mono.defer(() -> fetchUpstream(key, demand)));
+        }).subscribeOn(Schedulers.boundedElastic());
+
+        return upstream.doOnNext(snapshot -> {
+            promote(key, snapshot);
+            persistentStore.put(key, snapshot);
+        });
+    }
+
+    private Mono<WeatherSnapshot> fetchUpstream(LocationKey key, UpstreamQuota.Demand demand) {
+        if (!upstreamQuota.tryAcquire(demand, popularity.isHot(key))) {
+            return Mono.error(new UpstreamUnavailableException("OpenWeather quota reserved for popular locations"));
+        }
+
+        upstreamLoads.increment();
+        BigDecimal latitude = locationKeyGenerator.latitudeOf(key);
+        BigDecimal longitude = locationKeyGenerator.longitudeOf(key);
+        Mono<WeatherSnapshot> upstream = streamingDecode
+                ? openWeatherClient.fetchWeatherSnapshot(latitude, longitude)
+                : openWeatherClient.fetchWeatherData(latitude, longitude).map(apiResponse -> {
+                    long start = System.nanoTime();
+                    WeatherSnapshot snapshot = mapper.mapToWeatherSnapshotFromApi(apiResponse, latitude, longitude);
+                    mapStage.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    return snapshot;
+                });
+
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return upstream.doFinally(signal -> fetchStage.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        }).publishOn(Schedulers.boundedElastic()).doOnNext(snapshot -> {
+            snapshot.setFetchedAt(Instant.now());
+            sharedTier.put(key, snapshot);
+        });
+    }
+
+    private UpstreamQuota.Demand demandFor(LocationKey key, String requestingCache) {
+        if (requestingCache == null) {
+            return UpstreamQuota.Demand.BACKGROUND;
+        }
+        return stale(requestingCache, key) != null
+                ? UpstreamQuota.Demand.STALE_AVAILABLE
+                : UpstreamQuota.Demand.REQUIRED;
+    }
+
+    /**
+     * Drops the near-cache views for a location another replica has just refreshed; the next
+     * request picks the newer snapshot up from the shared tier.
+     */
+    private void evictNearCache(LocationKey key) {
+        for (String cacheName : VIEW_CACHES) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.evict(key);
+            }
+        }
+        log.debug("Evicted near-cache views for {} after a remote update", key);
+    }
+
+    /**
+     * Puts every view of a snapshot into its cache, the requesting one included, with the original
+     * fetch time, so TTL, refresh-ahead and stale-if-error behave as if a persisted entry had never
+     * left memory. Each entry also holds a strong ETag built from the cell, the upstream {@code dt}
+     * and the view content hash, so conditional requests can be answered without serializing the
+     * view. When {@code @Cacheable} then stores the same instance, the entry is kept as it is.
+     */
+    private void promote(LocationKey key, WeatherSnapshot snapshot) {
+        forecastCompactor.compact(snapshot);
+        Instant fetchedAt = snapshot.getFetchedAt();
+        String version = Long.toHexString(key.packed()) + "-"
+                + Long.toHexString(snapshot.getUpstreamTimestamp() != null ? snapshot.getUpstreamTimestamp() : 0L);
+        promoteView(CacheConfig.CURRENT_WEATHER_CACHE, key, snapshot.getCurrent(), "c", version, fetchedAt);
+        promoteView(CacheConfig.HOURLY_FORECAST_CACHE, key, snapshot.getHourly(), "h", version, fetchedAt);
+        promoteView(CacheConfig.DAILY_FORECAST_CACHE, key, snapshot.getDaily(), "d", version, fetchedAt);
+    }
+
+    private void promoteView(String cacheName, LocationKey key, Object view, String tag, String version,
+                             Instant fetchedAt) {
+        if (view == null) {
+            return;
+        }
+
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache instanceof RefreshAheadCache refreshAheadCache && fetchedAt != null) {
+            String etag = "\"" + tag + "-" + version + "-" + Integer.toHexString(view.hashCode()) + "\"";
+            refreshAheadCache.put(key, view, fetchedAt, encodedResponseCache.create(etag, fetchedAt));
+        } else if (cache != null) {
+            cache.put(key, view);
+        }
+    }
+
+    private boolean isFresh(WeatherSnapshot snapshot, Duration freshFor) {
+        Duration effectiveTtl = Duration.ofMillis((long) (ttl.toMillis() * upstreamQuota.ttlExtension()));
+        return snapshot.getFetchedAt().plus(effectiveTtl).isAfter(Instant.now().plus(freshFor));
+    }
+
+    private WeatherSnapshot staleSnapshot(LocationKey key) {
+        CurrentWeatherResponse current = (CurrentWeatherResponse) stale(CacheConfig.CURRENT_WEATHER_CACHE, key);
+        HourlyWeatherResponse hourly = (HourlyWeatherResponse) stale(CacheConfig.HOURLY_FORECAST_CACHE, key);
+        DailyWeatherResponse daily = (DailyWeatherResponse) stale(CacheConfig.DAILY_FORECAST_CACHE, key);
+        return WeatherSnapshot.builder()
+                .current(current)
+                .hourly(hourly)
+                .daily(daily)
+                .build();
+    }
+
+    private Object stale(String cacheName, Object key) {
+        return cacheManager.getCache(cacheName) instanceof RefreshAheadCache refreshAheadCache
+                ? refreshAheadCache.getStale(key)
+                : null;
+    }
+}
@@ -0,0 +1,143 @@
+package com.weatherapp.shared;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Process-local {@link SharedStore} with the same semantics as a networked backend. Used as the
+ * embedded stand-in for single-node runs and tests. Expired entries are dropped when read and
+ * purged every {@code purge-interval-ms}, so bucket, quota and lease keys that are never read
+ * again do not stay in memory.
+ */
+public class InMemorySharedStore implements SharedStore {
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, List<Consumer<byte[]>>> subscribers = new ConcurrentHashMap<>();
+    private final LongSupplier nanoTicker;
+
+    public InMemorySharedStore() {
+        this(System::nanoTime);
+    }
+
+    /**
+     * Expires entries against {@code nanoTicker} instead of {@link System#nanoTime()}, so tests
+     * can move time forward.
+     */
+    public InMemorySharedStore(LongSupplier nanoTicker) {
+        this.nanoTicker = nanoTicker;
+    }
+
+    @Override
+    public byte[] get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry)) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    @Override
+    public void set(String key, byte[] value, Duration ttl) {
+        entries.put(key, entry(value, ttl));
+    }
+
+    @Override
+    public boolean setIfAbsent(String key, byte[] value, Duration ttl) {
+        Entry created = entry(value, ttl);
+        Entry result = entries.compute(key, (k, existing) ->
+                existing == null || isExpired(existing) ? created : existing);
+        return result == created;
+    }
+
+    @Override
+    public boolean compareAndSet(String key, byte[] expected, byte[] value, Duration ttl) {
+        Entry replacement = entry(value, ttl);
+        Entry result = entries.compute(key, (k, existing) -> {
+            byte[] current = existing == null || isExpired(existing) ? null : existing.value;
+            return Arrays.equals(current, expected) ? replacement : existing;
+        });
+        return result == replacement;
+    }
+
+    @Override
+    public long increment(String key, Duration ttl) {
+        Entry result = entries.compute(key, (k, existing) -> {
+            if (existing == null || isExpired(existing)) {
+                return entry(encodeCount(1), ttl);
+            }
+            return new Entry(encodeCount(decodeCount(existing.value) + 1), existing.expiresAt);
+        });
+        return decodeCount(result.value);
+    }
+
+    @Override
+    public void delete(String key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public void deleteIfEquals(String key, byte[] expected) {
+        entries.computeIfPresent(key, (k, existing) ->
+                Arrays.equals(existing.value, expected) ? null : existing);
+    }
+
+    @Override
+    public void publish(String channel, byte[] message) {
+        subscribers.getOrDefault(channel, List.of()).forEach(listener -> listener.accept(message));
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<byte[]> listener) {
+        subscribers.computeIfAbsent(channel, c -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    @Scheduled(fixedDelayString = "${weather.shared.purge-interval-ms}",
+            initialDelayString = "${weather.shared.purge-interval-ms}")
+    public void purgeExpired() {
+        entries.entrySet().removeIf(entry -> isExpired(entry.getValue()));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private Entry entry(byte[] value, Duration ttl) {
+        return new Entry(value, nanoTicker.getAsLong() + ttl.toNanos());
+    }
+
+    private boolean isExpired(Entry entry) {
+        return nanoTicker.getAsLong() - entry.expiresAt >= 0;
+    }
+
+    // counters are stored as decimal text, like Redis INCR keeps them
+    private static byte[] encodeCount(long count) {
+        return Long.toString(count).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static long decodeCount(byte[] value) {
+        return Long.parseLong(new String(value, StandardCharsets.US_ASCII));
+    }
+
+    private static final class Entry {
+        private final byte[] value;
+        private final long expiresAt;
+
+        Entry(byte[] value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
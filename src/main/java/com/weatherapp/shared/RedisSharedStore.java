@@ -0,0 +1,152 @@
+package com.weatherapp.shared;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * {@link SharedStore} backed by Redis through a single multiplexed Lettuce connection, plus a
+ * dedicated connection for pub/sub. Commands run on request threads, so they fail after a short
+ * {@code commandTimeout} instead of Lettuce's 60 second default. The Lua scripts are loaded once
+ * and called by SHA, and reloaded if the server has lost them.
+ */
+@Slf4j
+public class RedisSharedStore implements SharedStore, DisposableBean {
+
+    private static final RedisCodec<String, byte[]> CODEC = RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE);
+
+    private static final String DELETE_IF_EQUALS_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end";
+
+    private static final String COMPARE_AND_SET_SCRIPT =
+            "local current = redis.call('get', KEYS[1]) "
+            + "if (current == false and ARGV[1] == '') or current == ARGV[1] then "
+            + "redis.call('set', KEYS[1], ARGV[2], 'PX', ARGV[3]) return 1 end "
+            + "return 0";
+
+    private static final String INCREMENT_SCRIPT =
+            "local count = redis.call('incr', KEYS[1]) "
+            + "if count == 1 then redis.call('pexpire', KEYS[1], ARGV[1]) end "
+            + "return count";
+
+    private static final byte[] ABSENT = new byte[0];
+
+    private final RedisClient client;
+    private final StatefulRedisConnection<String, byte[]> connection;
+    private final StatefulRedisPubSubConnection<String, byte[]> pubSubConnection;
+    private final RedisCommands<String, byte[]> commands;
+    private final String deleteIfEqualsSha;
+    private final String compareAndSetSha;
+    private final String incrementSha;
+    private final ConcurrentMap<String, List<Consumer<byte[]>>> subscribers = new ConcurrentHashMap<>();
+
+    public RedisSharedStore(String redisUri, Duration commandTimeout) {
+        RedisURI uri = RedisURI.create(redisUri);
+        uri.setTimeout(commandTimeout);
+        this.client = RedisClient.create(uri);
+        this.connection = client.connect(CODEC);
+        this.commands = connection.sync();
+        this.deleteIfEqualsSha = commands.scriptLoad(DELETE_IF_EQUALS_SCRIPT);
+        this.compareAndSetSha = commands.scriptLoad(COMPARE_AND_SET_SCRIPT);
+        this.incrementSha = commands.scriptLoad(INCREMENT_SCRIPT);
+        this.pubSubConnection = client.connectPubSub(CODEC);
+        this.pubSubConnection.addListener(new RedisPubSubAdapter<>() {
+            @Override
+            public void message(String channel, byte[] message) {
+                subscribers.getOrDefault(channel, List.of()).forEach(listener -> listener.accept(message));
+            }
+        });
+        log.info("Connected shared store to Redis");
+    }
+
+    @Override
+    public byte[] get(String key) {
+        return commands.get(key);
+    }
+
+    @Override
+    public void set(String key, byte[] value, Duration ttl) {
+        commands.set(key, value, SetArgs.Builder.px(ttl.toMillis()));
+    }
+
+    @Override
+    public boolean setIfAbsent(String key, byte[] value, Duration ttl) {
+        return "OK".equals(commands.set(key, value, SetArgs.Builder.nx().px(ttl.toMillis())));
+    }
+
+    @Override
+    public boolean compareAndSet(String key, byte[] expected, byte[] value, Duration ttl) {
+        Long updated = evalScript(compareAndSetSha, COMPARE_AND_SET_SCRIPT, key,
+                expected != null ? expected : ABSENT, value,
+                Long.toString(ttl.toMillis()).getBytes(StandardCharsets.US_ASCII));
+        return updated != null && updated == 1L;
+    }
+
+    @Override
+    public long increment(String key, Duration ttl) {
+        return evalScript(incrementSha, INCREMENT_SCRIPT, key,
+                Long.toString(ttl.toMillis()).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    public void delete(String key) {
+        commands.del(key);
+    }
+
+    @Override
+    public void deleteIfEquals(String key, byte[] expected) {
+        evalScript(deleteIfEqualsSha, DELETE_IF_EQUALS_SCRIPT, key, expected);
+    }
+
+    @Override
+    public void publish(String channel, byte[] message) {
+        commands.publish(channel, message);
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<byte[]> listener) {
+        subscribers.computeIfAbsent(channel, c -> {
+            pubSubConnection.sync().subscribe(c);
+            return new CopyOnWriteArrayList<>();
+        }).add(listener);
+    }
+
+    /**
+     * Runs an integer-valued script by SHA, loading it again if the server no longer has it,
+     * e.g. after a restart or {@code SCRIPT FLUSH}.
+     */
+    private Long evalScript(String sha, String script, String key, byte[]... args) {
+        try {
+            return commands.evalsha(sha, ScriptOutputType.INTEGER, new String[]{key}, args);
+        } catch (RedisNoScriptException e) {
+            commands.scriptLoad(script);
+            return commands.evalsha(sha, ScriptOutputType.INTEGER, new String[]{key}, args);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        pubSubConnection.close();
+        connection.close();
+        client.shutdown();
+    }
+}
@@ -0,0 +1,44 @@
+package com.weatherapp.shared;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Minimal key-value and pub/sub contract for state shared between service replicas.
+ * Implementations must be safe for concurrent use.
+ */
+public interface SharedStore {
+
+    byte[] get(String key);
+
+    void set(String key, byte[] value, Duration ttl);
+
+    /**
+     * Stores {@code value} only if {@code key} is absent; used for cross-replica leases.
+     */
+    boolean setIfAbsent(String key, byte[] value, Duration ttl);
+
+    /**
+     * Replaces the value of {@code key} only while it still holds {@code expected}; a {@code null}
+     * {@code expected} means the key must be absent. Used for optimistic updates of shared state.
+     */
+    boolean compareAndSet(String key, byte[] expected, byte[] value, Duration ttl);
+
+    /**
+     * Atomically adds one to the counter at {@code key} and returns the new count. A new counter
+     * starts at zero and expires after {@code ttl}; incrementing does not extend it.
+     */
+    long increment(String key, Duration ttl);
+
+    void delete(String key);
+
+    /**
+     * Deletes {@code key} only while it still holds {@code expected}, so a lease is only ever
+     * released by its owner.
+     */
+    void deleteIfEquals(String key, byte[] expected);
+
+    void publish(String channel, byte[] message);
+
+    void subscribe(String channel, Consumer<byte[]> listener);
+}
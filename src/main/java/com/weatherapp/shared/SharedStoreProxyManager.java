@@ -0,0 +1,98 @@
+package com.weatherapp.shared;
+
+import io.github.bucket4j.TimeMeter;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AbstractCompareAndSwapBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AsyncCompareAndSwapOperation;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapOperation;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Bucket4j proxy manager that keeps serialized bucket state in a {@link SharedStore} and applies
+ * updates with compare-and-set, retrying on conflict. Each write expires the state once the
+ * bucket it describes would have refilled completely, debt included, so absent and full buckets
+ * are equivalent. {@link SharedStore} is blocking, so the asynchronous operations run
+ * the same store calls on a bounded elastic worker.
+ */
+public class SharedStoreProxyManager extends AbstractCompareAndSwapBasedProxyManager<String> {
+
+    private static final String KEY_PREFIX = "weather:bucket:";
+    private static final TimeMeter CLOCK = TimeMeter.SYSTEM_MILLISECONDS;
+    private static final Duration MIN_STATE_TTL = Duration.ofSeconds(1);
+
+    private final SharedStore store;
+
+    public SharedStoreProxyManager(SharedStore store) {
+        super(ClientSideConfig.getDefault().withClientClock(CLOCK));
+        this.store = store;
+    }
+
+    @Override
+    protected CompareAndSwapOperation beginCompareAndSwapOperation(String key) {
+        String storeKey = KEY_PREFIX + key;
+        return new CompareAndSwapOperation() {
+            @Override
+            public Optional<byte[]> getStateData() {
+                return Optional.ofNullable(store.get(storeKey));
+            }
+
+            @Override
+            public boolean compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState) {
+                return store.compareAndSet(storeKey, originalData, newData, stateTtl(newState));
+            }
+        };
+    }
+
+    @Override
+    protected AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(String key) {
+        CompareAndSwapOperation operation = beginCompareAndSwapOperation(key);
+        return new AsyncCompareAndSwapOperation() {
+            @Override
+            public CompletableFuture<Optional<byte[]>> getStateData() {
+                return offload(operation::getStateData);
+            }
+
+            @Override
+            public CompletableFuture<Boolean> compareAndSwap(byte[] originalData, byte[] newData,
+                                                             RemoteBucketState newState) {
+                return offload(() -> operation.compareAndSwap(originalData, newData, newState));
+            }
+        };
+    }
+
+    @Override
+    public void removeProxy(String key) {
+        store.delete(KEY_PREFIX + key);
+    }
+
+    @Override
+    protected CompletableFuture<Void> removeAsync(String key) {
+        return offload(() -> {
+            removeProxy(key);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean isAsyncModeSupported() {
+        return true;
+    }
+
+    private static Duration stateTtl(RemoteBucketState state) {
+        Duration untilFull = Duration.ofNanos(state.calculateFullRefillingTime(CLOCK.currentTimeNanos()));
+        return untilFull.compareTo(MIN_STATE_TTL) > 0 ? untilFull : MIN_STATE_TTL;
+    }
+
+    private static <T> CompletableFuture<T> offload(Callable<T> call) {
+        return Mono.fromCallable(call)
+                .subscribeOn(Schedulers.boundedElastic())
+                .toFuture();
+    }
+}
@@ -0,0 +1,75 @@
+package com.weatherapp.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weatherapp.dto.CurrentWeatherResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EncodedResponseCacheTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+    private static final CurrentWeatherResponse BODY = CurrentWeatherResponse.builder()
+            .temperature(12.5)
+            .dataSource("OpenWeather")
+            .build();
+
+    @Test
+    void bothVariantsAreEncodedOnceAndKept() throws IOException {
+        EncodedResponseCache cache = cache(true);
+        EncodedResponseCache.Representation representation = cache.create("\"c-1\"", Instant.now());
+
+        byte[] identity = cache.identity(BODY, representation);
+        byte[] gzip = cache.gzip(BODY, representation);
+
+        assertThat(identity).isEqualTo(OBJECT_MAPPER.writeValueAsBytes(BODY));
+        assertThat(cache.identity(BODY, representation)).isSameAs(identity);
+        assertThat(cache.gzip(BODY, representation)).isSameAs(gzip);
+        assertThat(gunzip(gzip)).isEqualTo(identity);
+    }
+
+    @Test
+    void withoutKeepIdentityOnlyTheGzipVariantIsKept() throws IOException {
+        EncodedResponseCache cache = cache(false);
+        EncodedResponseCache.Representation representation = cache.create("\"c-1\"", Instant.now());
+
+        byte[] gzip = cache.gzip(BODY, representation);
+        byte[] identity = cache.identity(BODY, representation);
+
+        assertThat(cache.gzip(BODY, representation)).isSameAs(gzip);
+        assertThat(cache.identity(BODY, representation)).isNotSameAs(identity).isEqualTo(identity);
+        assertThat(gunzip(gzip)).isEqualTo(identity);
+    }
+
+    @Test
+    void maxAgeIsTheRemainingTtlOrZeroWhenTheFetchTimeIsUnknown() {
+        EncodedResponseCache cache = cache(true);
+
+        assertThat(cache.maxAgeSeconds(cache.create("\"c-1\"", Instant.now().minus(Duration.ofMinutes(10)))))
+                .isBetween(19 * 60L, 20 * 60L);
+        assertThat(cache.maxAgeSeconds(cache.create("\"c-1\"", Instant.now().minus(Duration.ofMinutes(45)))))
+                .isZero();
+        assertThat(cache.maxAgeSeconds(cache.representation("currentWeather",
+                new BigDecimal("40.71"), new BigDecimal("-74.01"), BODY))).isZero();
+    }
+
+    private static EncodedResponseCache cache(boolean keepIdentity) {
+        return new EncodedResponseCache(OBJECT_MAPPER, new SimpleCacheManager(),
+                new LocationKeyGenerator(new BigDecimal("0.01")), true, keepIdentity, 30);
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.weatherapp.cache;
+
+import com.weatherapp.exception.InvalidLocationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocationKeyGeneratorTest {
+
+    private final LocationKeyGenerator generator = new LocationKeyGenerator(new BigDecimal("0.01"));
+
+    @Test
+    void nearbyAndDifferentlyScaledCoordinatesShareACell() {
+        LocationKey key = key("40.7128", "-74.0060");
+
+        assertThat(key("40.7131", "-74.0059")).isEqualTo(key);
+        assertThat(key("40.71", "-74.01")).isEqualTo(key);
+        assertThat(key("40.710000", "-74.010000")).isEqualTo(key);
+        assertThat(key("40.7151", "-74.0060")).isNotEqualTo(key);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "40.7128, -74.0060, 4071, -7401",
+            "-33.8688, 151.2093, -3387, 15121",
+            "0, 0, 0, 0",
+            "-0.004, 0.004, 0, 0",
+            "90, 180, 9000, 18000",
+            "-90, -180, -9000, -18000"
+    })
+    void coordinatesSnapToTheNearestGridIndex(String latitude, String longitude, int latitudeIndex, int longitudeIndex) {
+        LocationKey key = key(latitude, longitude);
+
+        assertThat(key.latitudeIndex()).isEqualTo(latitudeIndex);
+        assertThat(key.longitudeIndex()).isEqualTo(longitudeIndex);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "40.71, -74.01",
+            "-33.87, 151.21",
+            "90.00, 180.00",
+            "-90.00, -180.00"
+    })
+    void cellCoordinatesMapBackToTheSameCell(BigDecimal latitude, BigDecimal longitude) {
+        LocationKey key = generator.keyFor(latitude, longitude);
+
+        assertThat(generator.latitudeOf(key)).isEqualByComparingTo(latitude);
+        assertThat(generator.longitudeOf(key)).isEqualByComparingTo(longitude);
+        assertThat(generator.keyFor(generator.latitudeOf(key), generator.longitudeOf(key))).isEqualTo(key);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "0, 0",
+            "-1, -1",
+            "-9000, 18000",
+            "9000, -18000",
+            "-2147483648, 2147483647",
+            "2147483647, -2147483648"
+    })
+    void packedKeyRoundTripsBothIndices(int latitudeIndex, int longitudeIndex) {
+        LocationKey key = LocationKey.of(latitudeIndex, longitudeIndex);
+        LocationKey unpacked = LocationKey.fromPacked(key.packed());
+
+        assertThat(unpacked).isEqualTo(key).hasSameHashCodeAs(key);
+        assertThat(unpacked.latitudeIndex()).isEqualTo(latitudeIndex);
+        assertThat(unpacked.longitudeIndex()).isEqualTo(longitudeIndex);
+    }
+
+    @Test
+    void indicesDoNotBleedIntoEachOther() {
+        assertThat(LocationKey.of(0, -1)).isNotEqualTo(LocationKey.of(-1, -1));
+        assertThat(LocationKey.of(1, 0)).isNotEqualTo(LocationKey.of(0, 1));
+    }
+
+    @Test
+    void generateRequiresLatitudeAndLongitude() {
+        assertThatThrownBy(() -> generator.generate(this, null, new BigDecimal("40.71")))
+                .isInstanceOf(InvalidLocationException.class);
+        assertThatThrownBy(() -> generator.generate(this, null, "40.71", "-74.01"))
+                .isInstanceOf(InvalidLocationException.class);
+        assertThat(generator.generate(this, null, new BigDecimal("40.71"), new BigDecimal("-74.01")))
+                .isEqualTo(LocationKey.of(4071, -7401));
+    }
+
+    @Test
+    void gridSizeMustBePositive() {
+        assertThatThrownBy(() -> new LocationKeyGenerator(BigDecimal.ZERO))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private LocationKey key(String latitude, String longitude) {
+        return generator.keyFor(new BigDecimal(latitude), new BigDecimal(longitude));
+    }
+}
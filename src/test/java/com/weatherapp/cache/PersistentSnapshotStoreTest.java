@@ -0,0 +1,72 @@
+package com.weatherapp.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weatherapp.dto.WeatherSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersistentSnapshotStoreTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+    @TempDir
+    Path directory;
+
+    private PersistentSnapshotStore store;
+
+    @BeforeEach
+    void setUp() {
+        // 30 minute TTL plus 60 minutes of stale-if-error
+        store = new PersistentSnapshotStore(OBJECT_MAPPER, true, directory.resolve("snapshots.mv.db").toString(),
+                1, 30, true, 60);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.destroy();
+    }
+
+    @Test
+    void sweepRemovesOnlyEntriesPastTheirStaleWindow() {
+        store.put(LocationKey.of(1, 1), snapshot(Instant.now().minus(Duration.ofMinutes(100))));
+        store.put(LocationKey.of(2, 2), snapshot(Instant.now().minus(Duration.ofMinutes(45))));
+        store.put(LocationKey.of(3, 3), snapshot(Instant.now()));
+
+        store.sweepExpired();
+
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(store.get(LocationKey.of(2, 2))).isNotNull();
+        assertThat(store.get(LocationKey.of(3, 3))).isNotNull();
+    }
+
+    @Test
+    void recentEntriesAreVisitedNewestFirst() {
+        store.put(LocationKey.of(1, 1), snapshot(Instant.now().minus(Duration.ofMinutes(20))));
+        store.put(LocationKey.of(2, 2), snapshot(Instant.now()));
+        store.put(LocationKey.of(3, 3), snapshot(Instant.now().minus(Duration.ofMinutes(100))));
+
+        List<LocationKey> visited = new ArrayList<>();
+        store.forEachRecent(10, (key, snapshot) -> visited.add(key));
+
+        assertThat(visited).containsExactly(LocationKey.of(2, 2), LocationKey.of(1, 1));
+        assertThat(store.size()).isEqualTo(2);
+    }
+
+    private static WeatherSnapshot snapshot(Instant fetchedAt) {
+        return WeatherSnapshot.builder()
+                .upstreamTimestamp(fetchedAt.getEpochSecond())
+                .fetchedAt(fetchedAt)
+                .build();
+    }
+}
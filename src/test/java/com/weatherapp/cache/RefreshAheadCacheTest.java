@@ -0,0 +1,97 @@
+package com.weatherapp.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RefreshAheadCacheTest {
+
+    private static final String KEY = "40.71,-74.01";
+    private static final Duration REFRESH_AFTER = Duration.ofMinutes(25);
+    private static final Duration TTL = Duration.ofMinutes(30);
+    private static final Duration MAX_AGE = Duration.ofMinutes(90);
+
+    private final List<Object> refreshed = new CopyOnWriteArrayList<>();
+    private StatsCounter statsCounter;
+    private RefreshAheadCache cache;
+
+    @BeforeEach
+    void setUp() {
+        statsCounter = new ConcurrentStatsCounter();
+        cache = new RefreshAheadCache("currentWeather", Caffeine.newBuilder()
+                .expireAfterWrite(MAX_AGE)
+                .recordStats(() -> statsCounter)
+                .<Object, RefreshAheadCache.CacheEntry>build(),
+                statsCounter, REFRESH_AFTER, TTL, MAX_AGE);
+        // left incomplete, like a refresh still waiting on the upstream
+        cache.setRefresher(key -> {
+            refreshed.add(key);
+            return new CompletableFuture<>();
+        });
+    }
+
+    @Test
+    void freshEntryIsServedWithoutARefresh() {
+        cache.put(KEY, "sunny");
+
+        assertThat(cache.get(KEY).get()).isEqualTo("sunny");
+        assertThat(refreshed).isEmpty();
+        assertThat(statsCounter.snapshot().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void entryPastTheSoftTtlIsServedAndRefreshedOnce() {
+        putAged("sunny", REFRESH_AFTER.plusMinutes(1));
+
+        assertThat(cache.get(KEY).get()).isEqualTo("sunny");
+        assertThat(cache.get(KEY).get()).isEqualTo("sunny");
+
+        assertThat(refreshed).containsExactly(KEY);
+    }
+
+    @Test
+    void entryPastTheHardTtlIsAMissButStillServedStale() {
+        putAged("sunny", TTL.plusMinutes(1));
+
+        assertThat(cache.get(KEY)).isNull();
+        assertThat(statsCounter.snapshot().missCount()).isEqualTo(1);
+        assertThat(cache.getStale(KEY)).isEqualTo("sunny");
+        assertThat(cache.remainingFreshNanos(KEY)).isZero();
+    }
+
+    @Test
+    void staleEntryIsNoLongerServedPastTheMaxAge() {
+        putAged("sunny", MAX_AGE.plusMinutes(1));
+
+        assertThat(cache.getStale(KEY)).isNull();
+    }
+
+    @Test
+    void ttlExtensionKeepsAnOlderEntryFresh() {
+        putAged("sunny", TTL.plusMinutes(1));
+        cache.setTtlExtension(() -> 2.0);
+
+        assertThat(cache.get(KEY).get()).isEqualTo("sunny");
+        assertThat(refreshed).isEmpty();
+    }
+
+    @Test
+    void absentKeyHasNoRemainingFreshTime() {
+        assertThat(cache.remainingFreshNanos(KEY)).isEqualTo(-1);
+        assertThat(cache.getStale(KEY)).isNull();
+    }
+
+    private void putAged(Object value, Duration age) {
+        cache.put(KEY, value, Instant.now().minus(age), null);
+    }
+}
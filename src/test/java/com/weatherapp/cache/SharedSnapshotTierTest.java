@@ -0,0 +1,171 @@
+package com.weatherapp.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weatherapp.dto.WeatherSnapshot;
+import com.weatherapp.shared.InMemorySharedStore;
+import com.weatherapp.shared.SharedStore;
+import com.weatherapp.shared.SharedStores;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SharedSnapshotTierTest {
+
+    private static final LocationKey KEY = LocationKey.of(4071, -7401);
+    private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private InMemorySharedStore store;
+    private SharedSnapshotTier replicaA;
+    private SharedSnapshotTier replicaB;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemorySharedStore(nanoTime::get);
+        replicaA = tier(store, "replica-a", 1);
+        replicaB = tier(store, "replica-b", 1);
+    }
+
+    @Test
+    void leaseIsHeldByOneReplicaUntilItsOwnerReleasesIt() {
+        assertThat(replicaA.tryAcquireLease(KEY)).isTrue();
+        assertThat(replicaB.tryAcquireLease(KEY)).isFalse();
+
+        replicaB.releaseLease(KEY);
+        assertThat(replicaB.tryAcquireLease(KEY)).isFalse();
+
+        replicaA.releaseLease(KEY);
+        assertThat(replicaB.tryAcquireLease(KEY)).isTrue();
+    }
+
+    @Test
+    void leaseExpiresWhenItsHolderNeverReleasesIt() {
+        assertThat(replicaA.tryAcquireLease(KEY)).isTrue();
+
+        nanoTime.addAndGet(Duration.ofMillis(999).toNanos());
+        assertThat(replicaB.tryAcquireLease(KEY)).isFalse();
+
+        nanoTime.addAndGet(Duration.ofMillis(1).toNanos());
+        assertThat(replicaB.tryAcquireLease(KEY)).isTrue();
+    }
+
+    @Test
+    void leaseIsGrantedWhenTheStoreIsUnreachable() {
+        SharedStore unreachable = new InMemorySharedStore() {
+            @Override
+            public boolean setIfAbsent(String key, byte[] value, Duration ttl) {
+                throw new IllegalStateException("connection refused");
+            }
+        };
+
+        assertThat(tier(unreachable, "replica-a", 1).tryAcquireLease(KEY)).isTrue();
+    }
+
+    @Test
+    void waitingReplicaPicksUpTheSnapshotStoredByTheLeaseHolder() {
+        replicaA.tryAcquireLease(KEY);
+        Mono<WeatherSnapshot> awaited = replicaB.awaitPeer(KEY);
+
+        Mono.delay(Duration.ofMillis(250))
+                .subscribe(tick -> {
+                    replicaA.put(KEY, snapshot(Instant.now(), 42L));
+                    replicaA.releaseLease(KEY);
+                });
+
+        WeatherSnapshot snapshot = awaited.block(Duration.ofSeconds(5));
+        assertThat(snapshot).isNotNull();
+        assertThat(snapshot.getUpstreamTimestamp()).isEqualTo(42L);
+    }
+
+    @Test
+    void waitingPollsTheLeaseAndReadsTheSnapshotOnce() {
+        AtomicInteger snapshotReads = new AtomicInteger();
+        InMemorySharedStore counting = new InMemorySharedStore() {
+            @Override
+            public byte[] get(String key) {
+                if (key.startsWith("weather:snapshot:")) {
+                    snapshotReads.incrementAndGet();
+                }
+                return super.get(key);
+            }
+        };
+        SharedSnapshotTier holder = tier(counting, "replica-a", 1);
+        SharedSnapshotTier waiter = tier(counting, "replica-b", 1);
+        holder.tryAcquireLease(KEY);
+        Mono<WeatherSnapshot> awaited = waiter.awaitPeer(KEY);
+
+        Mono.delay(Duration.ofMillis(450))
+                .subscribe(tick -> {
+                    holder.put(KEY, snapshot(Instant.now(), 42L));
+                    holder.releaseLease(KEY);
+                });
+
+        assertThat(awaited.block(Duration.ofSeconds(5))).isNotNull();
+        assertThat(snapshotReads).hasValue(1);
+    }
+
+    @Test
+    void waitingCompletesEmptyAfterOneLeasePeriodWithoutASnapshot() {
+        AtomicInteger leasePolls = new AtomicInteger();
+        InMemorySharedStore counting = new InMemorySharedStore(nanoTime::get) {
+            @Override
+            public byte[] get(String key) {
+                if (key.startsWith("weather:lease:")) {
+                    leasePolls.incrementAndGet();
+                }
+                return super.get(key);
+            }
+        };
+        tier(counting, "replica-a", 1).tryAcquireLease(KEY);
+
+        WeatherSnapshot snapshot = tier(counting, "replica-b", 1).awaitPeer(KEY).block(Duration.ofSeconds(5));
+
+        // a one second lease polled every 100 ms
+        assertThat(snapshot).isNull();
+        assertThat(leasePolls).hasValue(10);
+    }
+
+    @Test
+    void waitingIgnoresASnapshotPastItsTtl() {
+        replicaA.put(KEY, snapshot(Instant.now().minus(Duration.ofMinutes(45)), 42L));
+
+        assertThat(replicaB.get(KEY)).isNotNull();
+        assertThat(replicaB.awaitPeer(KEY).block(Duration.ofSeconds(5))).isNull();
+    }
+
+    @Test
+    void storingASnapshotInvalidatesOtherReplicasOnly() {
+        List<LocationKey> invalidatedOnA = new CopyOnWriteArrayList<>();
+        List<LocationKey> invalidatedOnB = new CopyOnWriteArrayList<>();
+        replicaA.onInvalidation(invalidatedOnA::add);
+        replicaB.onInvalidation(invalidatedOnB::add);
+
+        replicaA.put(KEY, snapshot(Instant.now(), 42L));
+
+        assertThat(invalidatedOnA).isEmpty();
+        assertThat(invalidatedOnB).containsExactly(KEY);
+        assertThat(replicaB.get(KEY).getUpstreamTimestamp()).isEqualTo(42L);
+    }
+
+    private static SharedSnapshotTier tier(SharedStore store, String nodeId, long leaseSeconds) {
+        return new SharedSnapshotTier(SharedStores.provider(store), OBJECT_MAPPER,
+                nodeId, leaseSeconds, 100, 30, true, 60);
+    }
+
+    private static WeatherSnapshot snapshot(Instant fetchedAt, long upstreamTimestamp) {
+        return WeatherSnapshot.builder()
+                .upstreamTimestamp(upstreamTimestamp)
+                .fetchedAt(fetchedAt)
+                .build();
+    }
+}
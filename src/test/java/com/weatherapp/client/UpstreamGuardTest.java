@@ -0,0 +1,99 @@
+package com.weatherapp.client;
+
+import com.weatherapp.exception.ExternalApiException;
+import com.weatherapp.exception.MalformedUpstreamResponseException;
+import com.weatherapp.shared.SharedStores;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UpstreamGuardTest {
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void overloadIsRetriedUpToMaxAttempts() {
+        UpstreamGuard guard = guard(quota(0));
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> call(guard, attempts, new ExternalApiException("server error", 503)))
+                .isInstanceOf(ExternalApiException.class);
+
+        assertThat(attempts).hasValue(3);
+        assertThat(retries("scheduled")).isEqualTo(2);
+    }
+
+    @Test
+    void malformedResponseIsNotRetried() {
+        UpstreamGuard guard = guard(quota(0));
+        AtomicInteger attempts = new AtomicInteger();
+        MalformedUpstreamResponseException malformed = new MalformedUpstreamResponseException(
+                "bad payload", new UncheckedIOException(new IOException("truncated")));
+
+        assertThatThrownBy(() -> call(guard, attempts, malformed)).isSameAs(malformed);
+
+        assertThat(attempts).hasValue(1);
+        assertThat(retries("scheduled")).isZero();
+    }
+
+    @Test
+    void retryRefusedByQuotaIsRefundedToTheBudget() {
+        UpstreamQuota quota = quota(1);
+        assertThat(quota.tryAcquire(UpstreamQuota.Demand.REQUIRED, true)).isTrue();
+        UpstreamGuard guard = guard(quota);
+        double budgetBefore = retryBudget();
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> call(guard, attempts, new ExternalApiException("server error", 503)))
+                .isInstanceOf(ExternalApiException.class);
+
+        assertThat(attempts).hasValue(1);
+        assertThat(retries("quota_exhausted")).isEqualTo(1);
+        assertThat(retries("scheduled")).isZero();
+        assertThat(retryBudget()).isGreaterThanOrEqualTo(budgetBefore);
+    }
+
+    private void call(UpstreamGuard guard, AtomicInteger attempts, Throwable failure) {
+        guard.guard(Mono.defer(() -> {
+                    attempts.incrementAndGet();
+                    return Mono.error(failure);
+                }))
+                .retryWhen(guard.retrySpec(3))
+                .block(Duration.ofSeconds(5));
+    }
+
+    private double retries(String outcome) {
+        return meterRegistry.get("weather.upstream.retries").tag("outcome", outcome).counter().count();
+    }
+
+    private double retryBudget() {
+        return meterRegistry.get("weather.upstream.retry_budget.available").gauge().value();
+    }
+
+    private UpstreamQuota quota(long dailyLimit) {
+        return new UpstreamQuota(SharedStores.provider(null), dailyLimit, "UTC",
+                0.05, 0.5, 3.0, meterRegistry);
+    }
+
+    private UpstreamGuard guard(UpstreamQuota quota) {
+        return new UpstreamGuard(quota, 1, 5, 0.0, 0.1, 10,
+                20, 2, 200, 0.9, 2.0,
+                50, 100, 0.5, 30, 3,
+                meterRegistry);
+    }
+}
@@ -0,0 +1,82 @@
+package com.weatherapp.client;
+
+import com.weatherapp.shared.InMemorySharedStore;
+import com.weatherapp.shared.SharedStore;
+import com.weatherapp.shared.SharedStores;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UpstreamQuotaTest {
+
+    private static final long DAILY_LIMIT = 5;
+
+    @Test
+    void replicasDrawFromOneSharedBudget() {
+        InMemorySharedStore store = new InMemorySharedStore();
+        UpstreamQuota replicaA = quota(store);
+        UpstreamQuota replicaB = quota(store);
+
+        int admitted = 0;
+        for (int i = 0; i < DAILY_LIMIT * 2; i++) {
+            UpstreamQuota quota = i % 2 == 0 ? replicaA : replicaB;
+            if (quota.tryAcquireRetry()) {
+                admitted++;
+            }
+        }
+
+        assertThat(admitted).isEqualTo(DAILY_LIMIT);
+        assertThat(replicaA.remaining()).isZero();
+        assertThat(replicaB.remaining()).isZero();
+    }
+
+    @Test
+    void localFallbackStillEnforcesTheLimit() {
+        InMemorySharedStore store = new InMemorySharedStore() {
+            @Override
+            public long increment(String key, Duration ttl) {
+                throw new IllegalStateException("store down");
+            }
+        };
+        UpstreamQuota quota = quota(store);
+
+        int admitted = 0;
+        for (int i = 0; i < DAILY_LIMIT * 2; i++) {
+            if (quota.tryAcquireRetry()) {
+                admitted++;
+            }
+        }
+
+        assertThat(admitted).isEqualTo(DAILY_LIMIT);
+    }
+
+    @Test
+    void ttlExtensionIsUpdatedWhenCallsAreCounted() {
+        UpstreamQuota quota = quota(new InMemorySharedStore());
+        double before = quota.ttlExtension();
+
+        for (int i = 0; i < DAILY_LIMIT; i++) {
+            quota.tryAcquireRetry();
+        }
+
+        assertThat(before).isLessThan(3.0);
+        assertThat(quota.ttlExtension()).isEqualTo(3.0);
+    }
+
+    @Test
+    void incrementStartsAtOneAndKeepsCounting() {
+        InMemorySharedStore store = new InMemorySharedStore();
+
+        assertThat(store.increment("counter", Duration.ofMinutes(1))).isEqualTo(1);
+        assertThat(store.increment("counter", Duration.ofMinutes(1))).isEqualTo(2);
+        assertThat(store.get("counter")).asString().isEqualTo("2");
+    }
+
+    private static UpstreamQuota quota(SharedStore store) {
+        return new UpstreamQuota(SharedStores.provider(store), DAILY_LIMIT, "UTC",
+                0.05, 0.5, 3.0, new SimpleMeterRegistry());
+    }
+}
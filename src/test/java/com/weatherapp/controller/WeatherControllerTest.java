@@ -0,0 +1,216 @@
+package com.weatherapp.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import com.weatherapp.cache.EncodedResponseCache;
+import com.weatherapp.cache.LocationKey;
+import com.weatherapp.cache.LocationKeyGenerator;
+import com.weatherapp.cache.RefreshAheadCache;
+import com.weatherapp.config.CacheConfig;
+import com.weatherapp.dto.BatchWeatherRequest;
+import com.weatherapp.dto.BatchWeatherResult;
+import com.weatherapp.dto.CurrentWeatherResponse;
+import com.weatherapp.dto.DailyWeatherResponse;
+import com.weatherapp.dto.WeatherView;
+import com.weatherapp.ratelimit.BucketLimits;
+import com.weatherapp.ratelimit.CompactTokenBucket;
+import com.weatherapp.ratelimit.RateLimitCharge;
+import com.weatherapp.service.WeatherBatchService;
+import com.weatherapp.service.WeatherService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WeatherControllerTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+    private static final BigDecimal LATITUDE = new BigDecimal("40.7128");
+    private static final BigDecimal LONGITUDE = new BigDecimal("-74.0060");
+    private static final Duration TTL = Duration.ofMinutes(30);
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+    private static final CurrentWeatherResponse BODY = CurrentWeatherResponse.builder()
+            .temperature(12.5)
+            .dataSource("OpenWeather")
+            .build();
+
+    private final LocationKeyGenerator keyGenerator = new LocationKeyGenerator(new BigDecimal("0.01"));
+    private RefreshAheadCache currentWeather;
+    private RefreshAheadCache dailyForecast;
+    private EncodedResponseCache encodedResponseCache;
+    private WeatherService weatherService;
+    private WeatherController controller;
+
+    @BeforeEach
+    void setUp() {
+        currentWeather = viewCache(CacheConfig.CURRENT_WEATHER_CACHE);
+        dailyForecast = viewCache(CacheConfig.DAILY_FORECAST_CACHE);
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(currentWeather, dailyForecast));
+        cacheManager.initializeCaches();
+        encodedResponseCache = new EncodedResponseCache(OBJECT_MAPPER, cacheManager, keyGenerator,
+                true, true, TTL.toMinutes());
+
+        weatherService = mock(WeatherService.class);
+        when(weatherService.getCurrentWeather(LATITUDE, LONGITUDE)).thenReturn(CompletableFuture.completedFuture(BODY));
+        WeatherBatchService weatherBatchService = new WeatherBatchService(weatherService, keyGenerator);
+        ReflectionTestUtils.setField(weatherBatchService, "maxConcurrency", 4);
+        controller = new WeatherController(weatherService, weatherBatchService, encodedResponseCache);
+    }
+
+    @Test
+    void cachedResponseCarriesItsEtagAndRemainingTtlAsMaxAge() throws Exception {
+        cache(Instant.now().minus(Duration.ofMinutes(10)));
+
+        ResponseEntity<?> response = current(null, null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"c-42\"");
+        assertThat(response.getHeaders().getCacheControl()).contains("public");
+        assertThat(maxAge(response)).isBetween(19 * 60L, 20 * 60L);
+        assertThat(response.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+        assertThat((byte[]) response.getBody()).isEqualTo(OBJECT_MAPPER.writeValueAsBytes(BODY));
+    }
+
+    @Test
+    void matchingIfNoneMatchIsAnsweredWithNotModified() {
+        cache(Instant.now().minus(Duration.ofMinutes(10)));
+
+        for (String ifNoneMatch : List.of("\"c-42\"", "W/\"c-42\"", "\"other\", \"c-42\"", "*")) {
+            ResponseEntity<?> response = current(null, ifNoneMatch);
+
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+            assertThat(response.getBody()).isNull();
+            assertThat(response.getHeaders().getETag()).isEqualTo("\"c-42\"");
+            assertThat(maxAge(response)).isBetween(19 * 60L, 20 * 60L);
+        }
+    }
+
+    @Test
+    void staleOrForeignEtagGetsTheFullResponse() {
+        cache(Instant.now());
+
+        ResponseEntity<?> response = current(null, "\"c-41\"");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+    }
+
+    @Test
+    void gzipVariantHasItsOwnEtag() {
+        cache(Instant.now());
+
+        ResponseEntity<?> response = current("br, gzip", null);
+
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"c-42-gzip\"");
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(current("gzip", "\"c-42\"").getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(current("gzip", "\"c-42-gzip\"").getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(current("gzip;q=0", null).getHeaders().getETag()).isEqualTo("\"c-42\"");
+    }
+
+    @Test
+    void responseThatIsNotTheCachedEntryIsNotAdvertisedAsFresh() {
+        ResponseEntity<?> response = current(null, null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isNotNull();
+        assertThat(maxAge(response)).isZero();
+    }
+
+    @Test
+    void batchIsChargedPerGridCellAndView() {
+        BigDecimal sydneyLatitude = new BigDecimal("-33.8688");
+        BigDecimal sydneyLongitude = new BigDecimal("151.2093");
+        // New York's daily forecast is cached; every other view is fetched for this batch
+        DailyWeatherResponse newYorkDaily = DailyWeatherResponse.builder().dataSource("OpenWeather").build();
+        cache(dailyForecast, LATITUDE, LONGITUDE, newYorkDaily, Instant.now().minus(Duration.ofMinutes(1)));
+        fetchedOnRequest(LATITUDE, LONGITUDE, CurrentWeatherResponse.builder().temperature(12.5).build(), null);
+        when(weatherService.getDailyForecast(LATITUDE, LONGITUDE))
+                .thenReturn(CompletableFuture.completedFuture(newYorkDaily));
+        fetchedOnRequest(sydneyLatitude, sydneyLongitude, CurrentWeatherResponse.builder().temperature(21.0).build(),
+                DailyWeatherResponse.builder().dataSource("OpenWeather").build());
+        CompactTokenBucket bucket = new CompactTokenBucket(BucketLimits.of(1000, Duration.ofHours(1)));
+        RateLimitCharge charge = new RateLimitCharge(bucket, "client", 10, 1, () -> { });
+
+        List<BatchWeatherResult> results = controller.getBatchWeather(BatchWeatherRequest.builder()
+                        .locations(List.of(
+                                location(LATITUDE, LONGITUDE),
+                                location(new BigDecimal("40.7131"), new BigDecimal("-74.0059")),
+                                location(sydneyLatitude, sydneyLongitude)))
+                        .views(Set.of(WeatherView.CURRENT, WeatherView.DAILY))
+                        .build(), charge)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        // 2 cells x 2 views up front, then 3 fetched views; the second New York location shares its cell
+        assertThat(results).hasSize(3);
+        assertThat(bucket.tryConsume(0).remainingTokens()).isEqualTo(1000 - 2 * 2 - 3 * 10);
+    }
+
+    private void fetchedOnRequest(BigDecimal latitude, BigDecimal longitude, CurrentWeatherResponse current,
+                                  DailyWeatherResponse daily) {
+        when(weatherService.getCurrentWeather(latitude, longitude)).thenAnswer(invocation -> {
+            cache(currentWeather, latitude, longitude, current, Instant.now());
+            return CompletableFuture.completedFuture(current);
+        });
+        if (daily != null) {
+            when(weatherService.getDailyForecast(latitude, longitude)).thenAnswer(invocation -> {
+                cache(dailyForecast, latitude, longitude, daily, Instant.now());
+                return CompletableFuture.completedFuture(daily);
+            });
+        }
+    }
+
+    private void cache(RefreshAheadCache viewCache, BigDecimal latitude, BigDecimal longitude, Object view,
+                       Instant fetchedAt) {
+        viewCache.put(keyGenerator.keyFor(latitude, longitude), view, fetchedAt,
+                encodedResponseCache.create("\"" + view.hashCode() + "\"", fetchedAt));
+    }
+
+    private static BatchWeatherRequest.Location location(BigDecimal latitude, BigDecimal longitude) {
+        return BatchWeatherRequest.Location.builder().latitude(latitude).longitude(longitude).build();
+    }
+
+    private static RefreshAheadCache viewCache(String name) {
+        StatsCounter statsCounter = new ConcurrentStatsCounter();
+        return new RefreshAheadCache(name, Caffeine.newBuilder()
+                .recordStats(() -> statsCounter)
+                .<Object, RefreshAheadCache.CacheEntry>build(),
+                statsCounter, TTL.minusMinutes(5), TTL, TTL.plusMinutes(60));
+    }
+
+    private void cache(Instant fetchedAt) {
+        currentWeather.put(LocationKey.of(4071, -7401), BODY, fetchedAt,
+                encodedResponseCache.create("\"c-42\"", fetchedAt));
+    }
+
+    private ResponseEntity<?> current(String acceptEncoding, String ifNoneMatch) {
+        return controller.getCurrentWeather(LATITUDE, LONGITUDE, acceptEncoding, ifNoneMatch, null).join();
+    }
+
+    private static long maxAge(ResponseEntity<?> response) {
+        Matcher matcher = MAX_AGE.matcher(response.getHeaders().getCacheControl());
+        assertThat(matcher.find()).isTrue();
+        return Long.parseLong(matcher.group(1));
+    }
+}
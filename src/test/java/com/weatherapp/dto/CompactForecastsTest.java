@@ -0,0 +1,119 @@
+package com.weatherapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.weatherapp.dto.DailyWeatherResponse.DailyForecast;
+import com.weatherapp.dto.HourlyWeatherResponse.HourlyForecast;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactForecastsTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 10, 18, 12, 0);
+    private static final double[] TEMPERATURES = {12.5, 12.87, 13.24, -0.61, 14.0, 13.98};
+    private static final double[] PROBABILITIES = {0.0, 0.1, 0.35, 0.6, 1.0, 0.82};
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @Test
+    void hourlyListIsWrittenLikeThePlainList() throws Exception {
+        List<HourlyForecast> plain = hourly();
+        List<HourlyForecast> compact = CompactHourlyForecasts.of(plain, new WeatherConditionTable(16));
+
+        assertThat(compact).isInstanceOf(CompactHourlyForecasts.class);
+        assertThat(objectMapper.writeValueAsString(compact)).isEqualTo(objectMapper.writeValueAsString(plain));
+        assertThat(compact.hashCode()).isEqualTo(plain.hashCode());
+        assertThat(compact).isEqualTo(plain);
+    }
+
+    @Test
+    void dailyListIsWrittenLikeThePlainList() throws Exception {
+        List<DailyForecast> plain = daily();
+        List<DailyForecast> compact = CompactDailyForecasts.of(plain, new WeatherConditionTable(16));
+
+        assertThat(compact).isInstanceOf(CompactDailyForecasts.class);
+        assertThat(objectMapper.writeValueAsString(compact)).isEqualTo(objectMapper.writeValueAsString(plain));
+        assertThat(compact.hashCode()).isEqualTo(plain.hashCode());
+        assertThat(compact).isEqualTo(plain);
+    }
+
+    @Test
+    void otherMapperSettingsFallBackToTheElements() throws Exception {
+        ObjectMapper nonNull = Jackson2ObjectMapperBuilder.json()
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .build();
+        List<HourlyForecast> plain = hourly();
+        List<HourlyForecast> compact = CompactHourlyForecasts.of(plain, new WeatherConditionTable(16));
+
+        assertThat(nonNull.writeValueAsString(compact)).isEqualTo(nonNull.writeValueAsString(plain));
+    }
+
+    @Test
+    void fullConditionTableLeavesTheListAsItIs() {
+        WeatherConditionTable conditions = new WeatherConditionTable(1);
+        List<HourlyForecast> plain = hourly();
+
+        assertThat(CompactHourlyForecasts.of(plain, conditions)).isSameAs(plain);
+        assertThat(conditions.isFull()).isTrue();
+    }
+
+    private static List<HourlyForecast> hourly() {
+        List<HourlyForecast> forecasts = new ArrayList<>();
+        for (int hour = 0; hour < 6; hour++) {
+            forecasts.add(HourlyForecast.builder()
+                    .forecastTime(START.plusHours(hour))
+                    .temperature(TEMPERATURES[hour])
+                    .feelsLike(hour == 2 ? null : 11.0 - hour)
+                    .pressure(1013 + hour)
+                    .humidity(70)
+                    .dewPoint(6.41)
+                    .clouds(hour * 10)
+                    .visibility(10000.0)
+                    .windSpeed(3.6)
+                    .windDeg(220)
+                    .windGust(hour == 4 ? null : 7.2)
+                    .weather(hour % 2 == 0
+                            ? new HourlyWeatherResponse.WeatherCondition("Clouds", "overcast clouds", "04d")
+                            : new HourlyWeatherResponse.WeatherCondition("Rain", "light rain", "10d"))
+                    .probabilityOfPrecipitation(PROBABILITIES[hour])
+                    .rain1h(hour % 2 == 0 ? null : 0.25)
+                    .build());
+        }
+        return forecasts;
+    }
+
+    private static List<DailyForecast> daily() {
+        List<DailyForecast> forecasts = new ArrayList<>();
+        for (int day = 0; day < 4; day++) {
+            forecasts.add(DailyForecast.builder()
+                    .forecastDate(START.plusDays(day))
+                    .temperature(day == 1 ? null : DailyWeatherResponse.Temperature.builder()
+                            .morning(8.5).day(14.2 + day).evening(11.0).night(7.75).min(6.1).max(15.3)
+                            .build())
+                    .feelsLike(DailyWeatherResponse.FeelsLike.builder()
+                            .morning(7.0).day(13.9).evening(10.2).night(day == 3 ? null : 6.4)
+                            .build())
+                    .pressure(1009)
+                    .humidity(65 + day)
+                    .dewPoint(5.5)
+                    .windSpeed(4.1)
+                    .windDeg(200 + day)
+                    .windGust(9.0)
+                    .clouds(40)
+                    .probabilityOfPrecipitation(PROBABILITIES[day])
+                    .rain(day == 2 ? 1.5 : null)
+                    .weather(new DailyWeatherResponse.WeatherCondition("Clear", "clear sky", "01d"))
+                    .build());
+        }
+        return forecasts;
+    }
+}
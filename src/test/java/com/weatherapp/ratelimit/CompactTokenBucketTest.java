@@ -0,0 +1,53 @@
+package com.weatherapp.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactTokenBucketTest {
+
+    private static final Duration PERIOD = Duration.ofMillis(200);
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    @Test
+    void refillsProportionallyToElapsedTime() {
+        CompactTokenBucket bucket = new CompactTokenBucket(BucketLimits.of(10, PERIOD), nanoTime::get);
+        assertThat(bucket.tryConsume(10).consumed()).isTrue();
+        assertThat(bucket.tryConsume(1).consumed()).isFalse();
+
+        nanoTime.addAndGet(PERIOD.toNanos() / 2);
+
+        RateLimitProbe probe = bucket.tryConsume(1);
+        assertThat(probe.consumed()).isTrue();
+        assertThat(probe.remainingTokens()).isEqualTo(4);
+    }
+
+    @Test
+    void debtIsRepaidRatherThanForgivenAfterAFullPeriod() {
+        CompactTokenBucket bucket = new CompactTokenBucket(BucketLimits.of(10, PERIOD), nanoTime::get);
+        assertThat(bucket.tryConsume(10).consumed()).isTrue();
+        bucket.consumeIgnoringLimits(10);
+
+        nanoTime.addAndGet(PERIOD.toNanos());
+
+        RateLimitProbe probe = bucket.tryConsume(5);
+        assertThat(probe.consumed()).isFalse();
+        assertThat(probe.remainingTokens()).isZero();
+        assertThat(probe.nanosToWaitForRefill()).isEqualTo(PERIOD.toNanos() / 2);
+    }
+
+    @Test
+    void refillWindowCoversDebt() {
+        CompactTokenBucket bucket = new CompactTokenBucket(BucketLimits.of(10, PERIOD), nanoTime::get);
+        assertThat(bucket.refillWindow()).isEqualTo(PERIOD);
+
+        bucket.consumeIgnoringLimits(30);
+
+        // 30 tokens to repay at 10 per period, plus one window for tokens taken afterwards
+        assertThat(bucket.refillWindow()).isEqualTo(PERIOD.multipliedBy(4));
+    }
+}
@@ -0,0 +1,70 @@
+package com.weatherapp.service;
+
+import com.weatherapp.cache.LocationKey;
+import com.weatherapp.cache.LocationKeyGenerator;
+import com.weatherapp.cache.LocationPopularity;
+import com.weatherapp.dto.WeatherSnapshot;
+import com.weatherapp.exception.UpstreamUnavailableException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CacheWarmUpTest {
+
+    private static final String LOCATIONS = "40.71,-74.01;51.51,-0.13;48.86,2.35;35.68,139.69;59.91,10.75";
+
+    private final WeatherSnapshotLoader snapshotLoader = mock(WeatherSnapshotLoader.class);
+
+    @Test
+    void failedLoadsDoNotMakeTheCacheReady() {
+        when(snapshotLoader.prefetch(any(LocationKey.class), any(Duration.class)))
+                .thenReturn(CompletableFuture.failedFuture(new UpstreamUnavailableException("circuit open")));
+        CacheWarmUp warmUp = warmUp(120);
+
+        warmUp.warmUp();
+
+        assertThat(warmUp.getLoaded()).isZero();
+        assertThat(warmUp.isComplete()).isFalse();
+    }
+
+    @Test
+    void readyOnceTheRequiredShareIsLoadedFromTheStoredTiersFirst() {
+        when(snapshotLoader.prefetch(any(LocationKey.class), eq(Duration.ZERO)))
+                .thenReturn(CompletableFuture.completedFuture(new WeatherSnapshot()));
+        CacheWarmUp warmUp = warmUp(120);
+
+        warmUp.warmUp();
+
+        assertThat(warmUp.getLoaded()).isEqualTo(5);
+        assertThat(warmUp.isComplete()).isTrue();
+        verify(snapshotLoader, times(5)).prefetch(any(LocationKey.class), eq(Duration.ZERO));
+    }
+
+    @Test
+    void timeoutStillReleasesReadiness() {
+        when(snapshotLoader.prefetch(any(LocationKey.class), any(Duration.class)))
+                .thenReturn(new CompletableFuture<>());
+        CacheWarmUp warmUp = warmUp(0);
+
+        warmUp.warmUp();
+
+        assertThat(warmUp.isComplete()).isTrue();
+    }
+
+    private CacheWarmUp warmUp(long timeoutSeconds) {
+        return new CacheWarmUp(snapshotLoader, new LocationKeyGenerator(new BigDecimal("0.01")),
+                mock(LocationPopularity.class), Jackson2ObjectMapperBuilder.json().build(),
+                true, LOCATIONS, "", 4, 80, timeoutSeconds);
+    }
+}
@@ -0,0 +1,31 @@
+package com.weatherapp.service;
+
+import com.weatherapp.cache.LocationPopularity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HotLocationPrefetcherTest {
+
+    @Test
+    void aFailedTickDoesNotStopLaterTicks() {
+        LocationPopularity popularity = mock(LocationPopularity.class);
+        when(popularity.topLocations())
+                .thenThrow(new IllegalStateException("sketch unavailable"))
+                .thenReturn(List.of());
+        HotLocationPrefetcher prefetcher = new HotLocationPrefetcher(mock(WeatherSnapshotLoader.class), popularity,
+                true, 30_000, 60, 4, 0, new SimpleMeterRegistry());
+
+        assertThatThrownBy(prefetcher::prefetchHotLocations).isInstanceOf(IllegalStateException.class);
+        prefetcher.prefetchHotLocations();
+
+        verify(popularity, times(2)).topLocations();
+    }
+}
@@ -0,0 +1,214 @@
+package com.weatherapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import com.weatherapp.cache.EncodedResponseCache;
+import com.weatherapp.cache.LocationKey;
+import com.weatherapp.cache.LocationKeyGenerator;
+import com.weatherapp.cache.LocationPopularity;
+import com.weatherapp.cache.PersistentSnapshotStore;
+import com.weatherapp.cache.RefreshAheadCache;
+import com.weatherapp.cache.SharedSnapshotTier;
+import com.weatherapp.client.OpenWeatherClient;
+import com.weatherapp.client.UpstreamQuota;
+import com.weatherapp.config.CacheConfig;
+import com.weatherapp.dto.CurrentWeatherResponse;
+import com.weatherapp.dto.WeatherSnapshot;
+import com.weatherapp.logging.RequestStageTimers;
+import com.weatherapp.shared.InMemorySharedStore;
+import com.weatherapp.shared.SharedStores;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WeatherSnapshotLoaderTest {
+
+    private static final LocationKey KEY = LocationKey.of(4071, -7401);
+    private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+    private static final Duration TTL = Duration.ofMinutes(30);
+
+    private InMemorySharedStore store;
+    private OpenWeatherClient openWeatherClient;
+    private WeatherSnapshotLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemorySharedStore();
+        openWeatherClient = mock(OpenWeatherClient.class);
+        loader = loader(openWeatherClient, tier("replica-b"));
+    }
+
+    @Test
+    void prefetchPromotesTheSnapshotAnotherReplicaStoredInsteadOfFetching() {
+        tier("replica-a").put(KEY, snapshot(Instant.now(), 42L));
+        assertThat(loader.remainingFreshNanos(KEY)).isZero();
+
+        WeatherSnapshot snapshot = loader.prefetch(KEY, Duration.ofMinutes(1)).join();
+
+        assertThat(snapshot.getUpstreamTimestamp()).isEqualTo(42L);
+        assertThat(loader.remainingFreshNanos(KEY)).isGreaterThan(Duration.ofMinutes(29).toNanos());
+        verify(openWeatherClient, never()).fetchWeatherSnapshot(any(), any());
+    }
+
+    @Test
+    void prefetchFetchesWhenTheSharedCopyIsDueAsWell() {
+        tier("replica-a").put(KEY, snapshot(Instant.now().minus(TTL).plusSeconds(30), 42L));
+        when(openWeatherClient.fetchWeatherSnapshot(any(), any()))
+                .thenReturn(Mono.fromSupplier(() -> snapshot(null, 43L)));
+
+        WeatherSnapshot snapshot = loader.prefetch(KEY, Duration.ofMinutes(1)).join();
+
+        assertThat(snapshot.getUpstreamTimestamp()).isEqualTo(43L);
+        verify(openWeatherClient, times(1)).fetchWeatherSnapshot(any(), any());
+    }
+
+    @Test
+    void viewsMissingFromThePayloadDoNotMakeALocationDue() {
+        tier("replica-a").put(KEY, snapshot(Instant.now(), 42L));
+        loader.prefetch(KEY, Duration.ZERO).join();
+
+        // the snapshot has a current view only; the hourly and daily caches never hold the key
+        assertThat(loader.remainingFreshNanos(KEY)).isGreaterThan(Duration.ofMinutes(29).toNanos());
+    }
+
+    @Test
+    void concurrentLoadsForOneLocationShareASingleUpstreamFetch() throws Exception {
+        Sinks.One<WeatherSnapshot> upstream = Sinks.one();
+        when(openWeatherClient.fetchWeatherSnapshot(any(), any())).thenReturn(upstream.asMono());
+
+        List<CompletableFuture<WeatherSnapshot>> loads = loadConcurrently(8);
+        verify(openWeatherClient, timeout(5_000)).fetchWeatherSnapshot(any(), any());
+        upstream.tryEmitValue(snapshot(null, 42L));
+
+        for (CompletableFuture<WeatherSnapshot> load : loads) {
+            assertThat(load.get(5, TimeUnit.SECONDS).getUpstreamTimestamp()).isEqualTo(42L);
+        }
+        verify(openWeatherClient, times(1)).fetchWeatherSnapshot(any(), any());
+    }
+
+    @Test
+    void aFailedLoadIsSharedByItsWaitersAndNotReusedAfterwards() throws Exception {
+        Sinks.One<WeatherSnapshot> failing = Sinks.one();
+        when(openWeatherClient.fetchWeatherSnapshot(any(), any()))
+                .thenReturn(failing.asMono())
+                .thenReturn(Mono.fromSupplier(() -> snapshot(null, 43L)));
+
+        List<CompletableFuture<WeatherSnapshot>> loads = loadConcurrently(4);
+        verify(openWeatherClient, timeout(5_000)).fetchWeatherSnapshot(any(), any());
+        failing.tryEmitError(new IllegalStateException("upstream down"));
+
+        for (CompletableFuture<WeatherSnapshot> load : loads) {
+            assertThatThrownBy(load::join).isInstanceOf(CompletionException.class)
+                    .hasRootCauseInstanceOf(IllegalStateException.class);
+        }
+        assertThat(loader.load(KEY, CacheConfig.CURRENT_WEATHER_CACHE).get(5, TimeUnit.SECONDS)
+                .getUpstreamTimestamp()).isEqualTo(43L);
+        verify(openWeatherClient, times(2)).fetchWeatherSnapshot(any(), any());
+    }
+
+    private List<CompletableFuture<WeatherSnapshot>> loadConcurrently(int callers) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<CompletableFuture<WeatherSnapshot>>> submitted = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                submitted.add(executor.submit(() -> {
+                    start.await();
+                    return loader.load(KEY, CacheConfig.CURRENT_WEATHER_CACHE);
+                }));
+            }
+            start.countDown();
+
+            List<CompletableFuture<WeatherSnapshot>> loads = new ArrayList<>();
+            for (Future<CompletableFuture<WeatherSnapshot>> future : submitted) {
+                loads.add(future.get(5, TimeUnit.SECONDS));
+            }
+            return loads;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private SharedSnapshotTier tier(String nodeId) {
+        return new SharedSnapshotTier(SharedStores.provider(store), OBJECT_MAPPER,
+                nodeId, 1, 100, TTL.toMinutes(), true, 60);
+    }
+
+    static WeatherSnapshotLoader loader(OpenWeatherClient openWeatherClient, SharedSnapshotTier sharedTier) {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(
+                viewCache(CacheConfig.CURRENT_WEATHER_CACHE),
+                viewCache(CacheConfig.HOURLY_FORECAST_CACHE),
+                viewCache(CacheConfig.DAILY_FORECAST_CACHE)));
+        cacheManager.initializeCaches();
+        LocationKeyGenerator keyGenerator = new LocationKeyGenerator(new BigDecimal("0.01"));
+
+        WeatherSnapshotLoader loader = new WeatherSnapshotLoader(
+                openWeatherClient,
+                mock(WeatherDataMapper.class),
+                cacheManager,
+                keyGenerator,
+                new EncodedResponseCache(OBJECT_MAPPER, cacheManager, keyGenerator, true, true, TTL.toMinutes()),
+                new PersistentSnapshotStore(OBJECT_MAPPER, false, "", 1, TTL.toMinutes(), true, 60),
+                sharedTier,
+                new UpstreamQuota(SharedStores.provider(null), 0, "UTC", 0.05, 0.5, 3.0, meterRegistry),
+                new LocationPopularity(1024, 2, 10),
+                new ForecastCompactor(1024),
+                new RequestStageTimers(meterRegistry),
+                true,
+                100,
+                TTL.toMinutes(),
+                meterRegistry);
+        loader.registerRefreshers();
+        return loader;
+    }
+
+    private static RefreshAheadCache viewCache(String name) {
+        StatsCounter statsCounter = new ConcurrentStatsCounter();
+        Duration maxAge = TTL.plusMinutes(60);
+        return new RefreshAheadCache(name, Caffeine.newBuilder()
+                .expireAfterWrite(maxAge)
+                .recordStats(() -> statsCounter)
+                .<Object, RefreshAheadCache.CacheEntry>build(),
+                statsCounter, TTL.minusMinutes(5), TTL, maxAge);
+    }
+
+    static WeatherSnapshot snapshot(Instant fetchedAt, long upstreamTimestamp) {
+        return WeatherSnapshot.builder()
+                .current(CurrentWeatherResponse.builder().temperature(12.5).dataSource("OpenWeather").build())
+                .upstreamTimestamp(upstreamTimestamp)
+                .fetchedAt(fetchedAt)
+                .build();
+    }
+}
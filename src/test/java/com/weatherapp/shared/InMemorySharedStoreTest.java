@@ -0,0 +1,26 @@
+package com.weatherapp.shared;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemorySharedStoreTest {
+
+    private static final byte[] VALUE = "value".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void purgeDropsExpiredKeysThatAreNeverReadAgain() {
+        InMemorySharedStore store = new InMemorySharedStore();
+        store.set("weather:lease:1", VALUE, Duration.ZERO);
+        store.increment("weather:quota:2026-10-17", Duration.ZERO);
+        store.set("weather:snapshot:1", VALUE, Duration.ofMinutes(5));
+
+        store.purgeExpired();
+
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.get("weather:snapshot:1")).isEqualTo(VALUE);
+    }
+}
@@ -0,0 +1,104 @@
+package com.weatherapp.shared;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SharedStoreProxyManagerTest {
+
+    private static final long CAPACITY = 10;
+    private static final BucketConfiguration CONFIGURATION = BucketConfiguration.builder()
+            .addLimit(Bandwidth.simple(CAPACITY, Duration.ofMinutes(1)))
+            .build();
+
+    private InMemorySharedStore store;
+    private SharedStoreProxyManager replicaA;
+    private SharedStoreProxyManager replicaB;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemorySharedStore();
+        replicaA = new SharedStoreProxyManager(store);
+        replicaB = new SharedStoreProxyManager(store);
+    }
+
+    @Test
+    void combinedLimitHoldsAcrossReplicas() {
+        Bucket bucketA = replicaA.builder().build("client", CONFIGURATION);
+        Bucket bucketB = replicaB.builder().build("client", CONFIGURATION);
+
+        int consumed = 0;
+        for (int i = 0; i < CAPACITY * 3; i++) {
+            Bucket bucket = i % 2 == 0 ? bucketA : bucketB;
+            if (bucket.tryConsume(1)) {
+                consumed++;
+            }
+        }
+
+        assertThat(consumed).isEqualTo(CAPACITY);
+        assertThat(replicaA.builder().build("other", CONFIGURATION).tryConsume(1)).isTrue();
+    }
+
+    @Test
+    void combinedLimitHoldsUnderConcurrentConsumption() throws Exception {
+        Bucket bucketA = replicaA.builder().build("client", CONFIGURATION);
+        Bucket bucketB = replicaB.builder().build("client", CONFIGURATION);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> attempts = new ArrayList<>();
+            for (int i = 0; i < CAPACITY * 4; i++) {
+                Bucket bucket = i % 2 == 0 ? bucketA : bucketB;
+                attempts.add(executor.submit(() -> bucket.tryConsume(1)));
+            }
+
+            int consumed = 0;
+            for (Future<Boolean> attempt : attempts) {
+                if (attempt.get()) {
+                    consumed++;
+                }
+            }
+            assertThat(consumed).isEqualTo(CAPACITY);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void asyncBucketsShareStateWithSyncBuckets() {
+        AsyncBucketProxy asyncA = replicaA.asAsync().builder().build("client", CONFIGURATION);
+        Bucket bucketB = replicaB.builder().build("client", CONFIGURATION);
+
+        List<CompletableFuture<Boolean>> attempts = new ArrayList<>();
+        for (int i = 0; i < CAPACITY; i++) {
+            attempts.add(asyncA.tryConsume(1));
+        }
+        long consumed = attempts.stream().filter(CompletableFuture::join).count();
+
+        assertThat(consumed).isEqualTo(CAPACITY);
+        assertThat(bucketB.tryConsume(1)).isFalse();
+    }
+
+    @Test
+    void removedBucketStartsFull() {
+        Bucket bucketA = replicaA.builder().build("client", CONFIGURATION);
+        assertThat(bucketA.tryConsume(CAPACITY)).isTrue();
+
+        replicaB.asAsync().removeProxy("client").join();
+
+        assertThat(replicaB.builder().build("client", CONFIGURATION).tryConsume(CAPACITY)).isTrue();
+    }
+}
@@ -0,0 +1,25 @@
+package com.weatherapp.shared;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+/**
+ * Test fixtures for components that look up the optional {@link SharedStore} bean.
+ */
+public final class SharedStores {
+
+    private SharedStores() {
+    }
+
+    /**
+     * A provider resolving to {@code store}, or to nothing when it is {@code null}, as when no
+     * shared backend is configured.
+     */
+    public static ObjectProvider<SharedStore> provider(SharedStore store) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        if (store != null) {
+            beanFactory.addBean("sharedStore", store);
+        }
+        return beanFactory.getBeanProvider(SharedStore.class);
+    }
+}